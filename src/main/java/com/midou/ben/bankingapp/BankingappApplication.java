@@ -2,8 +2,10 @@ package com.midou.ben.bankingapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Drives the outbox relay
 public class BankingappApplication {
 
 	public static void main(String[] args) {
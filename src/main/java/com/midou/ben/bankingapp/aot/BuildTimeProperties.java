@@ -0,0 +1,31 @@
+package com.midou.ben.bankingapp.aot;
+
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Properties read by {@code @ConditionalOnProperty}. An AOT-processed build evaluates these conditions once,
+ * at build time, so the fast-startup jar keeps the beans chosen then whatever the runtime value is.
+ */
+final class BuildTimeProperties {
+
+    // Where the values seen by process-aot are stored inside the jar
+    static final String RESOURCE = "META-INF/bankingapp/aot-build.properties";
+
+    // Outbox sink selection, partitioned deployment
+    static final List<String> NAMES = List.of("app.outbox.sink", "app.partition.enabled");
+
+    private BuildTimeProperties() {
+    }
+
+    // Unset properties are stored as empty strings, so "missing" compares like any other value
+    static Properties snapshot(Environment environment) {
+        Properties values = new Properties();
+        for (String name : NAMES) {
+            values.setProperty(name, environment.getProperty(name, ""));
+        }
+        return values;
+    }
+}
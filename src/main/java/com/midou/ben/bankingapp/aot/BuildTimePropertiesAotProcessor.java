@@ -0,0 +1,26 @@
+package com.midou.ben.bankingapp.aot;
+
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+// Records the build-time values of the conditional properties into the AOT output (registered in aot.factories)
+class BuildTimePropertiesAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        StringWriter content = new StringWriter();
+        try {
+            BuildTimeProperties.snapshot(beanFactory.getBean(Environment.class)).store(content, "Evaluated by process-aot");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return (generationContext, code) -> generationContext.getGeneratedFiles()
+                .addResourceFile(BuildTimeProperties.RESOURCE, content.toString());
+    }
+}
@@ -0,0 +1,50 @@
+package com.midou.ben.bankingapp.aot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.AotDetector;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Fails the start of an AOT-processed build when a conditional property differs from its build-time value:
+ * the change would otherwise be silently ignored (e.g. app.partition.enabled=true starting a single node).
+ */
+@Component
+@Lazy(false) // Must run even with lazy initialization, before anything serves traffic
+@Slf4j
+public class BuildTimePropertiesGuard {
+
+    public BuildTimePropertiesGuard(Environment environment) throws IOException {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return; // Conditions are evaluated at startup, runtime values apply
+        }
+        ClassPathResource resource = new ClassPathResource(BuildTimeProperties.RESOURCE);
+        if (!resource.exists()) {
+            log.warn("No {} in this AOT build, cannot check build-time properties", BuildTimeProperties.RESOURCE);
+            return;
+        }
+        Properties built = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            built.load(in);
+        }
+        Properties current = BuildTimeProperties.snapshot(environment);
+        List<String> mismatches = new ArrayList<>();
+        for (String name : BuildTimeProperties.NAMES) {
+            if (!built.getProperty(name, "").equals(current.getProperty(name))) {
+                mismatches.add(name + "='" + current.getProperty(name) + "' (built with '" + built.getProperty(name, "") + "')");
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("AOT build was processed with other values of " + mismatches
+                    + "; rebuild with mvn -Pfast-startup package using the same values, or run without -Dspring.aot.enabled");
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.midou.ben.bankingapp.batch;
+
+import com.midou.ben.bankingapp.dto.PostingRunProgress;
+import com.midou.ben.bankingapp.dto.PostingRunRequest;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import com.midou.ben.bankingapp.exception.PostingRunException;
+import com.midou.ben.bankingapp.model.OutboxEventType;
+import com.midou.ben.bankingapp.model.PostingRunPlan;
+import com.midou.ben.bankingapp.model.PostingType;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.repository.AccountRepository;
+import com.midou.ben.bankingapp.repository.PostingRunChunkRepository;
+import com.midou.ben.bankingapp.repository.PostingRunPlanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Month-end interest and fee postings across all accounts.
+ * The account id space is cut into fixed ranges, processed in parallel by a bounded pool of virtual threads.
+ * Each range is one transaction: lock the rows, compute the postings, apply them with JDBC batch updates,
+ * write the matching outbox events and a checkpoint row. The id range and chunk size are stored when a run
+ * first starts; a restarted run replays that plan and skips the checkpointed ranges, so every account is posted
+ * exactly once per run id even if accounts were removed or the chunk size reconfigured in between. The pool is kept well below the connection pool
+ * size so online deposits and withdrawals keep their connections.
+ * With partitioning, a run covers the partition databases hosted by the node it is started on (id ranges are per
+ * partition). Partitions the node owns but does not host yet, or loses to a handover mid-run, are reported in the
+ * progress and fail the run, so a rerun of the same run id picks them up instead of the run claiming completion.
+ */
+@Service
+@Slf4j
+public class PostingBatchEngine implements DisposableBean {
+
+    private static final BigDecimal MONTHS_PER_YEAR = BigDecimal.valueOf(12);
+    private static final int SCALE = 4; // Same scale as the balance column
+
+    private static final String SELECT_CHUNK =
+            "select id, account_number, balance from accounts where id >= ? and id < ? order by id for update";
+    private static final String UPDATE_BALANCE =
+            "update accounts set balance = ?, updated_at = ? where id = ?";
+    private static final String INSERT_EVENT =
+            "insert into outbox_events (account_number, event_type, amount, balance, occurred_at) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_CHECKPOINT =
+            "insert into posting_run_chunks (run_id, chunk_start, chunk_end, accounts_posted, total_amount, completed_at) values (?, ?, ?, ?, ?, ?)";
+
+    private final AccountRepository accountRepository;
+    private final PostingRunChunkRepository postingRunChunkRepository;
+    private final PostingRunPlanRepository postingRunPlanRepository;
+    private final ClusterMembership clusterMembership;
+    private final PartitionStore partitionStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ExecutorService workers;
+    private final ExecutorService coordinators = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, PostingRun> runs = new ConcurrentHashMap<>();
+    private final Counter postedCounter;
+
+    public PostingBatchEngine(AccountRepository accountRepository,
+                              PostingRunChunkRepository postingRunChunkRepository,
+                              PostingRunPlanRepository postingRunPlanRepository,
+                              ClusterMembership clusterMembership,
+                              PartitionStore partitionStore,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.batch.chunk-size:1000}") int chunkSize,
+                              @Value("${app.batch.parallelism:4}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.postingRunChunkRepository = postingRunChunkRepository;
+        this.postingRunPlanRepository = postingRunPlanRepository;
+        this.clusterMembership = clusterMembership;
+        this.partitionStore = partitionStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.workers = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().name("posting-", 0).factory());
+        this.postedCounter = meterRegistry.counter("bankingapp.batch.postings");
+    }
+
+    // Starts (or resumes) a run in the background and returns its initial progress
+    public PostingRunProgress start(PostingRunRequest request) {
+        PostingRun run = register(request);
+        coordinators.execute(() -> execute(run));
+        return run.progress();
+    }
+
+    // Runs to completion on the calling thread (chunks still go to the worker pool)
+    public PostingRunProgress run(PostingRunRequest request) {
+        PostingRun run = register(request);
+        execute(run);
+        return run.progress();
+    }
+
+    public Optional<PostingRunProgress> getProgress(String runId) {
+        return Optional.ofNullable(runs.get(runId)).map(PostingRun::progress);
+    }
+
+    private PostingRun register(PostingRunRequest request) {
+        validate(request);
+        PostingRun run = new PostingRun(request);
+        PostingRun current = runs.compute(request.runId(),
+                (runId, previous) -> previous != null && previous.isRunning() ? previous : run);
+        if (current != run) {
+            throw new PostingRunException(ErrorCode.POSTING_RUN_IN_PROGRESS, request.runId());
+        }
+        return run;
+    }
+
+    private void execute(PostingRun run) {
+        String runId = run.request.runId();
+        List<Chunk> chunks = new ArrayList<>();
+        boolean anyAccount = false;
+        for (int partition : partitionStore.heldPartitions()) {
+            Optional<Boolean> planned = partitionStore.callIfHeld(partition, () -> planChunks(run, partition, chunks));
+            if (planned.isEmpty()) {
+                run.unavailablePartitions.add(partition); // Handed over since the listing
+            }
+            anyAccount |= planned.orElse(false);
+        }
+        // Owned here but not hosted yet (handover in progress, or the former holder is down): reported, not skipped
+        for (int partition : clusterMembership.localPartitions()) {
+            if (!partitionStore.isHeld(partition) && !run.unavailablePartitions.contains(partition)) {
+                run.unavailablePartitions.add(partition);
+            }
+        }
+        if (!run.unavailablePartitions.isEmpty()) {
+            log.warn("Posting run {} cannot reach partitions {}, rerun the same run id once they are hosted", runId, run.unavailablePartitions);
+        }
+        if (!anyAccount) {
+            run.finish();
+            log.info("Posting run {} found no accounts", runId);
+            return;
+        }
+        run.totalChunks = chunks.size() + run.skippedChunks.get();
+        log.info("Posting run {} ({}) started: {} chunks, {} already done",
+                runId, run.request.type(), run.totalChunks, run.skippedChunks.get());
+
+        List<Future<?>> futures = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            futures.add(workers.submit(() -> {
+                if (!partitionStore.runIfHeld(chunk.partition(), () -> processChunk(run, chunk.start(), chunk.end()))) {
+                    run.failedChunks.incrementAndGet();
+                    log.warn("Posting run {} lost partition {} to a handover, rerun the same run id on its new owner", runId, chunk.partition());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                log.warn("Posting run {} interrupted while waiting for chunks: {}", runId, e.getMessage());
+            }
+        }
+        run.finish();
+        PostingRunProgress progress = run.progress();
+        log.info("Posting run {} {}: {} accounts posted in {} ms ({} accounts/s), {} chunks failed",
+                runId, progress.status(), progress.accountsPosted(), progress.elapsedMillis(),
+                Math.round(progress.accountsPerSecond()), progress.failedChunks());
+    }
+
+    // Adds the partition's id ranges not yet checkpointed for this run; false when the partition has no accounts
+    private boolean planChunks(PostingRun run, int partition, List<Chunk> chunks) {
+        PostingRunPlan plan = planFor(run.request.runId());
+        if (plan.getMinId() == null) {
+            return false;
+        }
+        int size = plan.getChunkSize();
+        Set<Long> completed = new HashSet<>(postingRunChunkRepository.findCompletedChunkStarts(run.request.runId()));
+        for (long start = plan.getMinId(); start <= plan.getMaxId(); start += size) {
+            if (completed.contains(start)) {
+                run.skippedChunks.incrementAndGet();
+            } else {
+                chunks.add(new Chunk(partition, start, start + size));
+            }
+        }
+        return true;
+    }
+
+    // Plan stored by the first start of the run, or a new one from the current id bounds and chunk size
+    private PostingRunPlan planFor(String runId) {
+        Optional<PostingRunPlan> stored = postingRunPlanRepository.findByRunId(runId);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        try {
+            return postingRunPlanRepository.save(
+                    new PostingRunPlan(runId, accountRepository.findMinId(), accountRepository.findMaxId(), chunkSize));
+        } catch (DataIntegrityViolationException e) {
+            // Planned concurrently by another start of the same run id: use its plan
+            return postingRunPlanRepository.findByRunId(runId).orElseThrow(() -> e);
+        }
+    }
+
+    private void processChunk(PostingRun run, long chunkStart, long chunkEnd) {
+        try {
+            ChunkResult result = transactionTemplate.execute(status -> postChunk(run.request, chunkStart, chunkEnd));
+            run.record(result);
+            postedCounter.increment(result.accountsPosted());
+        } catch (RuntimeException e) {
+            run.failedChunks.incrementAndGet();
+            log.warn("Posting run {} failed on ids [{}, {}), rerun the same run id to retry: {}",
+                    run.request.runId(), chunkStart, chunkEnd, e.getMessage());
+        }
+    }
+
+    private ChunkResult postChunk(PostingRunRequest request, long chunkStart, long chunkEnd) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> balanceUpdates = new ArrayList<>();
+        List<Object[]> events = new ArrayList<>();
+        OutboxEventType eventType = request.type() == PostingType.INTEREST ? OutboxEventType.INTEREST : OutboxEventType.FEE;
+        BigDecimal[] total = {BigDecimal.ZERO};
+
+        jdbcTemplate.query(SELECT_CHUNK, rs -> {
+            long id = rs.getLong(1);
+            String accountNumber = rs.getString(2);
+            BigDecimal balance = rs.getBigDecimal(3);
+            BigDecimal amount = postingAmount(request, balance);
+            if (amount.signum() == 0) {
+                return;
+            }
+            BigDecimal newBalance = request.type() == PostingType.INTEREST ? balance.add(amount) : balance.subtract(amount);
+            balanceUpdates.add(new Object[]{newBalance, now, id});
+            events.add(new Object[]{accountNumber, eventType.name(), amount, newBalance, now});
+            total[0] = total[0].add(amount);
+        }, chunkStart, chunkEnd);
+
+        if (!balanceUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE, balanceUpdates);
+            jdbcTemplate.batchUpdate(INSERT_EVENT, events);
+        }
+        jdbcTemplate.update(INSERT_CHECKPOINT, request.runId(), chunkStart, chunkEnd, balanceUpdates.size(), total[0], now);
+        return new ChunkResult(balanceUpdates.size(), total[0]);
+    }
+
+    static BigDecimal postingAmount(PostingRunRequest request, BigDecimal balance) {
+        if (request.type() == PostingType.INTEREST) {
+            if (balance.signum() <= 0) {
+                return BigDecimal.ZERO;
+            }
+            return balance.multiply(request.annualRate()).divide(MONTHS_PER_YEAR, SCALE, RoundingMode.HALF_EVEN);
+        }
+        return request.feeAmount().min(balance.max(BigDecimal.ZERO)).setScale(SCALE, RoundingMode.HALF_EVEN);
+    }
+
+    private void validate(PostingRunRequest request) {
+        if (request.runId() == null || request.runId().isEmpty() || request.type() == null) {
+            throw new PostingRunException(ErrorCode.INVALID_POSTING_RUN);
+        }
+        BigDecimal value = request.type() == PostingType.INTEREST ? request.annualRate() : request.feeAmount();
+        if (value == null || value.signum() <= 0) {
+            throw new PostingRunException(ErrorCode.INVALID_POSTING_RUN);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        coordinators.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private record Chunk(int partition, long start, long end) {
+    }
+
+    private record ChunkResult(int accountsPosted, BigDecimal totalAmount) {
+    }
+
+    // Live state of one run, updated concurrently by the workers
+    private static class PostingRun {
+        private final PostingRunRequest request;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+        private volatile int totalChunks;
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        private final AtomicInteger skippedChunks = new AtomicInteger();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private final AtomicLong accountsPosted = new AtomicLong();
+        private final List<Integer> unavailablePartitions = new CopyOnWriteArrayList<>();
+        private BigDecimal totalAmount = BigDecimal.ZERO; // Guarded by this
+
+        PostingRun(PostingRunRequest request) {
+            this.request = request;
+        }
+
+        void record(ChunkResult result) {
+            completedChunks.incrementAndGet();
+            accountsPosted.addAndGet(result.accountsPosted());
+            synchronized (this) {
+                totalAmount = totalAmount.add(result.totalAmount());
+            }
+        }
+
+        void finish() {
+            endNanos = System.nanoTime();
+        }
+
+        boolean isRunning() {
+            return endNanos == 0;
+        }
+
+        PostingRunProgress progress() {
+            long elapsedNanos = (isRunning() ? System.nanoTime() : endNanos) - startNanos;
+            long posted = accountsPosted.get();
+            String status = isRunning() ? "RUNNING"
+                    : failedChunks.get() > 0 || !unavailablePartitions.isEmpty() ? "FAILED" : "COMPLETED";
+            BigDecimal amount;
+            synchronized (this) {
+                amount = totalAmount;
+            }
+            return new PostingRunProgress(request.runId(), request.type(), status, totalChunks,
+                    completedChunks.get() + skippedChunks.get(), skippedChunks.get(), failedChunks.get(), List.copyOf(unavailablePartitions),
+                    posted, amount, elapsedNanos / 1_000_000,
+                    elapsedNanos > 0 ? posted * 1_000_000_000.0 / elapsedNanos : 0);
+        }
+    }
+}
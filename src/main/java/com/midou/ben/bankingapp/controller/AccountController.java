@@ -1,17 +1,26 @@
 package com.midou.ben.bankingapp.controller;
 
+import com.midou.ben.bankingapp.dto.AccountPageResponse;
 import com.midou.ben.bankingapp.dto.AccountResponse;
 import com.midou.ben.bankingapp.dto.CreateAccountRequest;
 import com.midou.ben.bankingapp.dto.TransactionRequest;
 import com.midou.ben.bankingapp.exception.AccountNotFoundException;
+import com.midou.ben.bankingapp.exception.AccountOperationException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
 import com.midou.ben.bankingapp.model.Account;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.search.OwnerSearchCursor;
 import com.midou.ben.bankingapp.service.AccountService;
+import com.midou.ben.bankingapp.stream.AccountUpdateBroadcaster;
 import com.midou.ben.bankingapp.utils.AccountMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.Optional;
 
 @RestController
@@ -21,6 +30,8 @@ import java.util.Optional;
 public class AccountController {
 
     private final AccountService accountService;
+    private final AccountUpdateBroadcaster accountUpdateBroadcaster;
+    private final ClusterMembership clusterMembership;
 
     // --- API Endpoints ---
 
@@ -37,7 +48,27 @@ public class AccountController {
                 request.accountNumber(),
                 request.initialBalance()
         );
-        return new ResponseEntity<>(AccountMapper.mapToAccountResponse(createdAccount), HttpStatus.CREATED);
+        return new ResponseEntity<>(toResponse(createdAccount), HttpStatus.CREATED);
+    }
+
+    @GetMapping(params = "owner")
+    public ResponseEntity<AccountPageResponse> searchAccounts(@RequestParam String owner,
+                                                              @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                              @RequestParam(required = false) String after,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        log.info("Received request to search accounts by owner: {} (fuzzy: {}, after: {}, size: {})", owner, fuzzy, after, size);
+        OwnerSearchCursor cursor = after == null ? null : OwnerSearchCursor.decode(after);
+        if ((after != null && cursor == null) || size < 1 || size > 100) {
+            throw new AccountOperationException(ErrorCode.INVALID_SEARCH_QUERY);
+        }
+        Slice<Account> accounts = accountService.searchByOwner(owner, fuzzy, cursor, size);
+        String nextCursor = null;
+        if (accounts.hasNext()) {
+            Account last = accounts.getContent().get(accounts.getNumberOfElements() - 1);
+            nextCursor = new OwnerSearchCursor(last.getNormalizedOwnerName(), last.getAccountNumber()).encode();
+        }
+        return ResponseEntity.ok(new AccountPageResponse(
+                accounts.map(this::toResponse).getContent(), size, accounts.hasNext(), nextCursor));
     }
 
     @GetMapping("/{accountNumber}")
@@ -47,8 +78,17 @@ public class AccountController {
 
         // Using functional style for Optional handling
         return accountOpt
-                .map(account -> ResponseEntity.ok(AccountMapper.mapToAccountResponse(account))) // If found, map to Response DTO and return 200 OK
-                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber)); // If not found, throw exception (handled globally or by @ResponseStatus)
+                .map(account -> ResponseEntity.ok(toResponse(account))) // If found, map to Response DTO and return 200 OK
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber)); // If not found, throw exception (rendered by GlobalExceptionHandler)
+    }
+
+    @GetMapping(value = "/{accountNumber}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAccountEvents(@PathVariable String accountNumber) {
+        log.info("Received request to stream updates of account: {}", accountNumber);
+        // First event is the current state, then one event per committed deposit or withdrawal
+        return accountUpdateBroadcaster.subscribe(accountNumber,
+                        () -> accountService.getAccountByAccountNumber(accountNumber).map(this::toResponse))
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
     }
 
     @PostMapping("/{accountNumber}/deposit")
@@ -58,7 +98,7 @@ public class AccountController {
             return ResponseEntity.badRequest().build(); // Or throw validation exception
         }
         Account updatedAccount = accountService.deposit(accountNumber, request.amount());
-        return ResponseEntity.ok(AccountMapper.mapToAccountResponse(updatedAccount));
+        return ResponseEntity.ok(toResponse(updatedAccount));
     }
 
     @PostMapping("/{accountNumber}/withdraw")
@@ -68,8 +108,10 @@ public class AccountController {
             return ResponseEntity.badRequest().build(); // Or throw validation exception
         }
         Account updatedAccount = accountService.withdraw(accountNumber, request.amount());
-        return ResponseEntity.ok(AccountMapper.mapToAccountResponse(updatedAccount));
+        return ResponseEntity.ok(toResponse(updatedAccount));
     }
 
-
-}
\ No newline at end of file
+    private AccountResponse toResponse(Account account) {
+        return AccountMapper.mapToAccountResponse(account, !clusterMembership.isEnabled());
+    }
+}
@@ -0,0 +1,125 @@
+package com.midou.ben.bankingapp.controller;
+
+import com.midou.ben.bankingapp.dto.ClusterMembershipUpdate;
+import com.midou.ben.bankingapp.dto.ClusterView;
+import com.midou.ben.bankingapp.dto.HostedAccountsResponse;
+import com.midou.ben.bankingapp.dto.HostedOwnerNamesResponse;
+import com.midou.ben.bankingapp.dto.NodeJoinRequest;
+import com.midou.ben.bankingapp.exception.ClusterException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionForwarder;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.search.OwnerNameIndex;
+import com.midou.ben.bankingapp.search.OwnerSearchCursor;
+import com.midou.ben.bankingapp.search.OwnerSearchQuery;
+import com.midou.ben.bankingapp.search.PartitionMatches;
+import com.midou.ben.bankingapp.service.AccountService;
+import com.midou.ben.bankingapp.utils.AccountMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/v1/cluster") // Partition ownership, node membership and calls between nodes
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterController {
+
+    private final ClusterMembership clusterMembership;
+    private final PartitionForwarder partitionForwarder;
+    private final PartitionStore partitionStore;
+    private final AccountService accountService;
+    private final OwnerNameIndex ownerNameIndex;
+
+    @GetMapping
+    public ResponseEntity<ClusterView> getCluster() {
+        return ResponseEntity.ok(clusterMembership.view(partitionStore.heldPartitions()));
+    }
+
+    // Joins (or moves) a node: applied here, then sent to every node of the new membership
+    @PutMapping("/nodes/{nodeId}")
+    public ResponseEntity<ClusterView> joinNode(@PathVariable String nodeId, @RequestBody NodeJoinRequest request) {
+        log.info("Received request to add node {} at {}", nodeId, request.url());
+        ClusterMembershipUpdate update = clusterMembership.join(nodeId, request.url());
+        partitionForwarder.broadcast(update, otherNodeUrls(update.nodes()));
+        return ResponseEntity.ok(clusterMembership.view(partitionStore.heldPartitions()));
+    }
+
+    // Removes a node: the leaving node is told too, so it stops serving its former partitions
+    @DeleteMapping("/nodes/{nodeId}")
+    public ResponseEntity<ClusterView> removeNode(@PathVariable String nodeId) {
+        log.info("Received request to remove node {}", nodeId);
+        Map<String, String> previousNodes = clusterMembership.current().nodes();
+        ClusterMembershipUpdate update = clusterMembership.leave(nodeId);
+        partitionForwarder.broadcast(update, otherNodeUrls(previousNodes));
+        return ResponseEntity.ok(clusterMembership.view(partitionStore.heldPartitions()));
+    }
+
+    // Pulled periodically by the other nodes
+    @GetMapping("/membership")
+    public ResponseEntity<ClusterMembershipUpdate> getMembership() {
+        return ResponseEntity.ok(clusterMembership.current());
+    }
+
+    // Membership sent by the node that handled a join or leave
+    @PutMapping("/membership")
+    public ResponseEntity<ClusterView> applyMembership(@RequestBody ClusterMembershipUpdate update) {
+        if (clusterMembership.apply(update)) {
+            log.info("Applied cluster membership v{}", update.version());
+        }
+        return ResponseEntity.ok(clusterMembership.view(partitionStore.heldPartitions()));
+    }
+
+    // Handover: the partition's database, released by this node if it no longer owns it (see PartitionStore)
+    @PostMapping(value = "/partitions/{partition}/export", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> exportPartition(@PathVariable int partition, @RequestParam String node) {
+        log.info("Node {} asks for partition {}", node, partition);
+        return ResponseEntity.ok(partitionStore.export(requireValid(partition), node));
+    }
+
+    // Handover: the node the partition was exported to has loaded it
+    @PostMapping("/partitions/{partition}/confirm")
+    public ResponseEntity<Void> confirmPartition(@PathVariable int partition, @RequestParam String node) {
+        partitionStore.confirmExport(requireValid(partition), node);
+        return ResponseEntity.ok().build();
+    }
+
+    // Owner search over the partitions hosted here, fanned out by the node serving the search
+    @GetMapping("/accounts")
+    public ResponseEntity<HostedAccountsResponse> searchHostedAccounts(@RequestParam String name,
+                                                                      @RequestParam boolean prefix,
+                                                                      @RequestParam String afterName,
+                                                                      @RequestParam String afterNumber,
+                                                                      @RequestParam int limit) {
+        PartitionMatches matches = accountService.searchHostedPartitions(
+                new OwnerSearchQuery(name, prefix, new OwnerSearchCursor(afterName, afterNumber), limit));
+        return ResponseEntity.ok(new HostedAccountsResponse(matches.partitions(),
+                matches.accounts().stream().map(account -> AccountMapper.mapToAccountResponse(account, false)).toList()));
+    }
+
+    // Owner names of the partitions hosted here, for the other nodes' fuzzy search indexes
+    @GetMapping("/owner-names")
+    public ResponseEntity<HostedOwnerNamesResponse> getHostedOwnerNames() {
+        return ResponseEntity.ok(ownerNameIndex.hostedNames());
+    }
+
+    private int requireValid(int partition) {
+        if (partition < 0 || partition >= clusterMembership.allPartitions().size()) {
+            throw new ClusterException(ErrorCode.PARTITION_NOT_HOSTED, Integer.toString(partition));
+        }
+        return partition;
+    }
+
+    private Collection<String> otherNodeUrls(Map<String, String> nodes) {
+        Map<String, String> others = new TreeMap<>(nodes);
+        others.remove(clusterMembership.nodeId());
+        return others.values();
+    }
+}
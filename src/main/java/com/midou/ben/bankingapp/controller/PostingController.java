@@ -0,0 +1,34 @@
+package com.midou.ben.bankingapp.controller;
+
+import com.midou.ben.bankingapp.batch.PostingBatchEngine;
+import com.midou.ben.bankingapp.dto.PostingRunProgress;
+import com.midou.ben.bankingapp.dto.PostingRunRequest;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import com.midou.ben.bankingapp.exception.PostingRunException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/postings") // Month-end interest and fee runs
+@RequiredArgsConstructor
+@Slf4j
+public class PostingController {
+
+    private final PostingBatchEngine postingBatchEngine;
+
+    @PostMapping
+    public ResponseEntity<PostingRunProgress> startRun(@RequestBody PostingRunRequest request) {
+        log.info("Received request to start posting run: {}", request);
+        return new ResponseEntity<>(postingBatchEngine.start(request), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<PostingRunProgress> getRun(@PathVariable String runId) {
+        return postingBatchEngine.getProgress(runId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new PostingRunException(ErrorCode.POSTING_RUN_NOT_FOUND, runId));
+    }
+}
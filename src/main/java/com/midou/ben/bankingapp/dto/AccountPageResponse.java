@@ -0,0 +1,12 @@
+package com.midou.ben.bankingapp.dto;
+
+import java.util.List;
+
+// nextCursor is passed back as 'after' to get the following page; null on the last page
+public record AccountPageResponse (
+         List<AccountResponse> content,
+         int size,
+         boolean hasNext,
+         String nextCursor
+) {
+}
@@ -1,10 +1,13 @@
 package com.midou.ben.bankingapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// id is left out with partitioning: database ids are per partition and repeat across the cluster
 public record AccountResponse (
-         Long id,
+         @JsonInclude(JsonInclude.Include.NON_NULL) Long id,
          String accountNumber,
          String ownerName,
          BigDecimal balance,
@@ -0,0 +1,11 @@
+package com.midou.ben.bankingapp.dto;
+
+import java.util.Map;
+
+// Membership sent between nodes after a join or leave, and pulled periodically; a node only applies memberships
+// ordered after its own (version, then node list)
+public record ClusterMembershipUpdate (
+         long version,
+         Map<String, String> nodes
+) {
+}
@@ -0,0 +1,14 @@
+package com.midou.ben.bankingapp.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record ClusterView (
+         String nodeId,
+         boolean partitioned,
+         long version,
+         Map<String, String> nodes,
+         Map<String, List<Integer>> partitionsByNode, // Owners in this node's membership
+         List<Integer> heldPartitions // Partition databases this node hosts; differs from its owned ones during handovers
+) {
+}
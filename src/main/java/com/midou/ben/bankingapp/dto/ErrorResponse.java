@@ -0,0 +1,9 @@
+package com.midou.ben.bankingapp.dto;
+
+// Compact problem body returned for every rejected request (served as application/problem+json)
+public record ErrorResponse (
+         String code,
+         int status,
+         String detail
+) {
+}
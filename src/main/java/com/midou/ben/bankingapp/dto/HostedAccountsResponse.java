@@ -0,0 +1,10 @@
+package com.midou.ben.bankingapp.dto;
+
+import java.util.List;
+
+// Owner search results of the partitions a node hosts, for the node fanning the search out
+public record HostedAccountsResponse (
+         List<Integer> partitions,
+         List<AccountResponse> accounts
+) {
+}
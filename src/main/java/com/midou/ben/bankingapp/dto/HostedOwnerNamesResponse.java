@@ -0,0 +1,10 @@
+package com.midou.ben.bankingapp.dto;
+
+import java.util.List;
+
+// Distinct normalized owner names of the partitions a node hosts, for the other nodes' fuzzy search indexes
+public record HostedOwnerNamesResponse (
+         List<Integer> partitions,
+         List<String> names
+) {
+}
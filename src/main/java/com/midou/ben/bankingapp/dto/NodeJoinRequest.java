@@ -0,0 +1,6 @@
+package com.midou.ben.bankingapp.dto;
+
+public record NodeJoinRequest (
+         String url
+) {
+}
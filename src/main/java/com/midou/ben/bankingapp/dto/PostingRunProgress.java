@@ -0,0 +1,22 @@
+package com.midou.ben.bankingapp.dto;
+
+import com.midou.ben.bankingapp.model.PostingType;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record PostingRunProgress (
+         String runId,
+         PostingType type,
+         String status,
+         int totalChunks,
+         int completedChunks,
+         int skippedChunks,
+         int failedChunks,
+         List<Integer> unavailablePartitions, // Owned by the node but not hosted there during the run
+         long accountsPosted,
+         BigDecimal totalAmount,
+         long elapsedMillis,
+         double accountsPerSecond
+) {
+}
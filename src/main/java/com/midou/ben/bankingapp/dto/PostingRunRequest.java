@@ -0,0 +1,13 @@
+package com.midou.ben.bankingapp.dto;
+
+import com.midou.ben.bankingapp.model.PostingType;
+
+import java.math.BigDecimal;
+
+public record PostingRunRequest (
+         String runId,          // Reusing the id of an interrupted run resumes it
+         PostingType type,
+         BigDecimal annualRate, // INTEREST: yearly rate, one twelfth is posted (e.g. 0.03)
+         BigDecimal feeAmount   // FEE: flat amount, never taking a balance below zero
+) {
+}
@@ -1,11 +1,7 @@
 package com.midou.ben.bankingapp.exception;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.web.bind.annotation.ResponseStatus;
-
-@ResponseStatus(HttpStatus.NOT_FOUND) // Maps exception to 404 Not Found
-public class AccountNotFoundException extends RuntimeException {
-    public AccountNotFoundException(String message) {
-        super(message);
+public class AccountNotFoundException extends BankingException {
+    public AccountNotFoundException(String accountNumber) {
+        super(ErrorCode.ACCOUNT_NOT_FOUND, accountNumber);
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,11 @@
 package com.midou.ben.bankingapp.exception;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.web.bind.annotation.ResponseStatus;
+public class AccountOperationException extends BankingException {
+    public AccountOperationException(ErrorCode errorCode) {
+        super(errorCode, null);
+    }
 
-@ResponseStatus(HttpStatus.BAD_REQUEST) // Maps exception to 400 Bad Request
-public class AccountOperationException extends RuntimeException {
-    public AccountOperationException(String message) {
-        super(message);
+    public AccountOperationException(ErrorCode errorCode, String subject) {
+        super(errorCode, subject);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.midou.ben.bankingapp.exception;
+
+import lombok.Getter;
+
+/**
+ * Base class of the domain exceptions. These are expected business outcomes, not bugs:
+ * they skip stack trace capture and suppression bookkeeping, and build their message lazily
+ * from the {@link ErrorCode} and subject.
+ */
+@Getter
+public abstract class BankingException extends RuntimeException {
+
+    private final ErrorCode errorCode;
+    private final String subject;
+
+    protected BankingException(ErrorCode errorCode, String subject) {
+        super(null, null, false, false); // No suppression, no stack trace
+        this.errorCode = errorCode;
+        this.subject = subject;
+    }
+
+    @Override
+    public String getMessage() {
+        return errorCode.message(subject);
+    }
+}
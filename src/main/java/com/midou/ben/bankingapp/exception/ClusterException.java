@@ -0,0 +1,12 @@
+package com.midou.ben.bankingapp.exception;
+
+// Rejected cluster call (bad credentials, invalid membership change)
+public class ClusterException extends BankingException {
+    public ClusterException(ErrorCode errorCode) {
+        super(errorCode, null);
+    }
+
+    public ClusterException(ErrorCode errorCode, String subject) {
+        super(errorCode, subject);
+    }
+}
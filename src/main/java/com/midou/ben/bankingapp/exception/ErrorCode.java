@@ -0,0 +1,45 @@
+package com.midou.ben.bankingapp.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+// Typed outcome of a rejected request; the message is only rendered when someone asks for it
+@Getter
+public enum ErrorCode {
+    ACCOUNT_NOT_FOUND(HttpStatus.NOT_FOUND, "Account not found with number: ", ""),
+    DUPLICATE_ACCOUNT_NUMBER(HttpStatus.BAD_REQUEST, "Account number '", "' already exists."),
+    NEGATIVE_INITIAL_BALANCE(HttpStatus.BAD_REQUEST, "Initial balance cannot be negative.", ""),
+    INVALID_DEPOSIT_AMOUNT(HttpStatus.BAD_REQUEST, "Deposit amount must be positive.", ""),
+    INVALID_WITHDRAWAL_AMOUNT(HttpStatus.BAD_REQUEST, "Withdrawal amount must be positive.", ""),
+    INSUFFICIENT_FUNDS(HttpStatus.BAD_REQUEST, "Insufficient funds in account ", ""),
+    INVALID_SEARCH_QUERY(HttpStatus.BAD_REQUEST, "Owner search needs a non-blank name, a cursor from a previous page and a size between 1 and 100.", ""),
+    SEARCH_INDEX_LOADING(HttpStatus.SERVICE_UNAVAILABLE, "Fuzzy owner search is still loading, please retry shortly or search without fuzzy.", ""),
+    INVALID_POSTING_RUN(HttpStatus.BAD_REQUEST, "A posting run needs a run id, a type and a positive annual rate or fee amount.", ""),
+    POSTING_RUN_IN_PROGRESS(HttpStatus.CONFLICT, "Posting run '", "' is already running."),
+    POSTING_RUN_NOT_FOUND(HttpStatus.NOT_FOUND, "Posting run not found: ", ""),
+    RATE_LIMITED(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded.", ""),
+    SERVICE_OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE, "Service overloaded, please retry later.", ""),
+    PARTITION_OWNER_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "The node owning this account is unavailable, please retry later.", ""),
+    SEARCH_PARTITION_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Some accounts are on a node that is unavailable, please retry later.", ""),
+    PARTITION_NOT_HOSTED(HttpStatus.NOT_FOUND, "Partition not hosted on this node: ", ""),
+    PARTITION_STILL_OWNED(HttpStatus.CONFLICT, "Partition ", " is still owned by this node."),
+    PARTITION_EXPORT_SUPERSEDED(HttpStatus.CONFLICT, "The export of partition ", " went to another node or was taken back."),
+    CLUSTER_UNAUTHORIZED(HttpStatus.UNAUTHORIZED, "Cluster calls need a valid cluster secret.", ""),
+    INVALID_MEMBERSHIP_CHANGE(HttpStatus.BAD_REQUEST, "Membership change rejected: ", "."),
+    INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "An internal error occurred. Please try again later.", "");
+
+    private final HttpStatus status;
+    private final String prefix;
+    private final String suffix;
+
+    ErrorCode(HttpStatus status, String prefix, String suffix) {
+        this.status = status;
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    // Message for the given subject (usually an account number), or the fixed message when there is none
+    public String message(String subject) {
+        return subject == null ? prefix : prefix + subject + suffix;
+    }
+}
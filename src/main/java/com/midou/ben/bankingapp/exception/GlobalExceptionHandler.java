@@ -1,42 +1,51 @@
 package com.midou.ben.bankingapp.exception;
 
+import com.midou.ben.bankingapp.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Hidden;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.util.EnumMap;
+import java.util.Map;
+
 @Hidden
 @ControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
-    // Handle specific exceptions
-
-    @ExceptionHandler(AccountNotFoundException.class)
-    public ResponseEntity<String> handleAccountNotFound(AccountNotFoundException ex) {
-        log.error("Account not found exception: {}", ex.getMessage());
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
-    }
+    private final Map<ErrorCode, Counter> errorCounters = new EnumMap<>(ErrorCode.class);
 
-    @ExceptionHandler(InsufficientFundsException.class)
-    public ResponseEntity<String> handleInsufficientFunds(InsufficientFundsException ex) {
-        log.error("Insufficient funds exception: {}", ex.getMessage());
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        for (ErrorCode code : ErrorCode.values()) {
+            errorCounters.put(code, meterRegistry.counter("bankingapp.errors", "code", code.name()));
+        }
     }
 
-    @ExceptionHandler(AccountOperationException.class)
-    public ResponseEntity<String> handleAccountOperationException(AccountOperationException ex) {
-        log.error("Account operation exception: {}", ex.getMessage());
-        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    // Domain exceptions are normal business outcomes: count them, don't log them as errors
+    @ExceptionHandler(BankingException.class)
+    public ResponseEntity<ErrorResponse> handleBankingException(BankingException ex) {
+        ErrorCode code = ex.getErrorCode();
+        errorCounters.get(code).increment();
+        log.debug("Request rejected with {}: {}", code, ex.getSubject());
+        return problem(code, ex.getMessage());
     }
 
     // Catch-all for other runtime exceptions
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<String> handleGenericRuntimeException(RuntimeException ex) {
+    public ResponseEntity<ErrorResponse> handleGenericRuntimeException(RuntimeException ex) {
         log.error("An unexpected error occurred: {}", ex.getMessage(), ex); // Log stack trace for unexpected errors
-        return new ResponseEntity<>("An internal error occurred. Please try again later.", HttpStatus.INTERNAL_SERVER_ERROR);
+        errorCounters.get(ErrorCode.INTERNAL_ERROR).increment();
+        return problem(ErrorCode.INTERNAL_ERROR, ErrorCode.INTERNAL_ERROR.message(null));
     }
 
-
+    private ResponseEntity<ErrorResponse> problem(ErrorCode code, String detail) {
+        return ResponseEntity.status(code.getStatus())
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(new ErrorResponse(code.name(), code.getStatus().value(), detail));
+    }
 }
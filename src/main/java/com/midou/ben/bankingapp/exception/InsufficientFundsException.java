@@ -1,11 +1,7 @@
 package com.midou.ben.bankingapp.exception;
 
-import org.springframework.http.HttpStatus;
-import org.springframework.web.bind.annotation.ResponseStatus;
-
-@ResponseStatus(HttpStatus.BAD_REQUEST) // Maps exception to 400 Bad Request
-public class InsufficientFundsException extends RuntimeException {
-    public InsufficientFundsException(String message) {
-        super(message);
+public class InsufficientFundsException extends BankingException {
+    public InsufficientFundsException(String accountNumber) {
+        super(ErrorCode.INSUFFICIENT_FUNDS, accountNumber);
     }
 }
@@ -0,0 +1,12 @@
+package com.midou.ben.bankingapp.exception;
+
+// Rejected posting run request (invalid parameters, run already in progress, unknown run id)
+public class PostingRunException extends BankingException {
+    public PostingRunException(ErrorCode errorCode) {
+        super(errorCode, null);
+    }
+
+    public PostingRunException(ErrorCode errorCode, String subject) {
+        super(errorCode, subject);
+    }
+}
@@ -0,0 +1,20 @@
+package com.midou.ben.bankingapp.json;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class AccountJsonConfig implements WebMvcConfigurer {
+
+    private final AccountJsonWriter accountJsonWriter;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.addFirst(new AccountJsonHttpMessageConverter(accountJsonWriter)); // Ahead of Jackson
+    }
+}
@@ -0,0 +1,54 @@
+package com.midou.ben.bankingapp.json;
+
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import com.midou.ben.bankingapp.dto.ErrorResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link AccountResponse} and {@link ErrorResponse} with {@link AccountJsonWriter} into a pooled
+ * buffer, then copies it to the response in one write with a known Content-Length.
+ * Registered ahead of Jackson; every other type still goes through Jackson.
+ */
+public class AccountJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final AccountJsonWriter writer;
+
+    public AccountJsonHttpMessageConverter(AccountJsonWriter writer) {
+        super(MediaType.APPLICATION_JSON, MediaType.APPLICATION_PROBLEM_JSON,
+                new MediaType("application", "*+json"));
+        this.writer = writer;  // No default charset: JSON is UTF-8, and Jackson's converter omits the parameter too
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == AccountResponse.class || clazz == ErrorResponse.class;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false; // Requests are still read by Jackson
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Read not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        JsonBuffer buffer = JsonBuffer.acquire();
+        if (value instanceof AccountResponse account) {
+            writer.write(account, buffer);
+        } else {
+            writer.write((ErrorResponse) value, buffer);
+        }
+        outputMessage.getHeaders().setContentLength(buffer.size()); // Headers are committed by getBody()
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
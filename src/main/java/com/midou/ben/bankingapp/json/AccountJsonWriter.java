@@ -0,0 +1,106 @@
+package com.midou.ben.bankingapp.json;
+
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import com.midou.ben.bankingapp.dto.ErrorResponse;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Renders {@link AccountResponse} and {@link ErrorResponse} without reflection.
+ * The parts of an account that never change (id, number, owner, creation time) are rendered once and
+ * kept in a bounded, lock-free cache indexed by account number; a request only renders the balance and
+ * the update time around the cached fragments. Error bodies without a subject are rendered once per code.
+ */
+@Component
+public class AccountJsonWriter {
+
+    private static final byte[] UPDATED_AT_FIELD = ",\"updatedAt\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final AtomicReferenceArray<Fragments> cache;
+    private final int mask;
+    private final Map<ErrorCode, byte[]> fixedErrors = new EnumMap<>(ErrorCode.class);
+
+    public AccountJsonWriter(@Value("${app.json.account-cache-size:65536}") int cacheSize) {
+        int capacity = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1; // Next power of two
+        this.cache = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        for (ErrorCode code : ErrorCode.values()) {
+            fixedErrors.put(code, renderError(JsonBuffer.acquire(), code.name(), code.getStatus().value(), code.message(null)).toByteArray());
+        }
+    }
+
+    // {"id":..,"accountNumber":..,"ownerName":..,"balance":..,"createdAt":..,"updatedAt":..}, without a null id
+    public JsonBuffer write(AccountResponse account, JsonBuffer buffer) {
+        Fragments fragments = fragments(account);
+        return buffer.raw(fragments.head)
+                .number(account.balance())
+                .raw(fragments.middle)
+                .dateTime(account.updatedAt())
+                .ascii("}");
+    }
+
+    // {"code":..,"status":..,"detail":..}
+    public JsonBuffer write(ErrorResponse error, JsonBuffer buffer) {
+        return renderError(buffer, error.code(), error.status(), error.detail());
+    }
+
+    // Pre-rendered body of an error code with its fixed message (e.g. for rejections written outside Spring MVC)
+    public byte[] fixedError(ErrorCode code) {
+        return fixedErrors.get(code);
+    }
+
+    private Fragments fragments(AccountResponse account) {
+        if (account.accountNumber() == null) {
+            return render(account); // Nothing stable to cache
+        }
+        int slot = account.accountNumber().hashCode() & mask;
+        Fragments cached = cache.get(slot);
+        if (cached != null && cached.matches(account)) {
+            return cached;
+        }
+        Fragments rendered = render(account);
+        cache.set(slot, rendered); // Colliding numbers simply replace each other
+        return rendered;
+    }
+
+    private static Fragments render(AccountResponse account) {
+        JsonBuffer head = new JsonBuffer().ascii("{");
+        if (account.id() != null) {
+            head.ascii("\"id\":").number(account.id()).ascii(",");
+        }
+        head.ascii("\"accountNumber\":").string(account.accountNumber())
+                .ascii(",\"ownerName\":").string(account.ownerName())
+                .ascii(",\"balance\":");
+        JsonBuffer middle = new JsonBuffer()
+                .ascii(",\"createdAt\":").dateTime(account.createdAt())
+                .raw(UPDATED_AT_FIELD);
+        return new Fragments(account.id(), account.accountNumber(), account.ownerName(), account.createdAt(),
+                head.toByteArray(), middle.toByteArray());
+    }
+
+    private static JsonBuffer renderError(JsonBuffer buffer, String code, int status, String detail) {
+        return buffer.ascii("{\"code\":").string(code)
+                .ascii(",\"status\":").number(status)
+                .ascii(",\"detail\":").string(detail)
+                .ascii("}");
+    }
+
+    // Cached rendering of the immutable part of one account, with the values it was rendered from
+    private record Fragments(Long id, String accountNumber, String ownerName, LocalDateTime createdAt,
+                             byte[] head, byte[] middle) {
+        boolean matches(AccountResponse account) {
+            return accountNumber.equals(account.accountNumber())
+                    && Objects.equals(id, account.id())
+                    && Objects.equals(ownerName, account.ownerName())
+                    && Objects.equals(createdAt, account.createdAt());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.midou.ben.bankingapp.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Growable UTF-8 byte buffer with the few JSON primitives the response writers need.
+ * Output matches what Jackson produces for the same values with Spring Boot's defaults
+ * (ISO local date-times, BigDecimal.toString, BMP characters written as UTF-8, surrogates as \\u escapes).
+ * Instances are reused per thread through {@link #acquire()}; never keep a reference after writing it out.
+ */
+public class JsonBuffer {
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024; // Larger buffers are not kept for reuse
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final ThreadLocal<JsonBuffer> POOL = ThreadLocal.withInitial(JsonBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    // Cleared buffer owned by the calling thread
+    public static JsonBuffer acquire() {
+        JsonBuffer buffer = POOL.get();
+        if (buffer.bytes.length > MAX_RETAINED_CAPACITY) {
+            buffer.bytes = new byte[INITIAL_CAPACITY];
+        }
+        buffer.size = 0;
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    public JsonBuffer raw(byte[] fragment) {
+        ensureCapacity(fragment.length);
+        System.arraycopy(fragment, 0, bytes, size, fragment.length);
+        size += fragment.length;
+        return this;
+    }
+
+    // ASCII text known not to need escaping (field names, punctuation, numbers)
+    public JsonBuffer ascii(String text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+
+    public JsonBuffer number(long value) {
+        return ascii(Long.toString(value));
+    }
+
+    public JsonBuffer number(BigDecimal value) {
+        return value == null ? ascii("null") : ascii(value.toString());
+    }
+
+    // Quoted, escaped JSON string
+    public JsonBuffer string(String value) {
+        if (value == null) {
+            return ascii("null");
+        }
+        ensureCapacity(value.length() * 3 + 2); // Escapes reserve their own extra room
+        bytes[size++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                escapeAscii(c);
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                unicodeEscape(c); // Jackson escapes supplementary characters as surrogate pairs
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensureCapacity(1);
+        bytes[size++] = '"';
+        return this;
+    }
+
+    // Quoted ISO-8601 local date-time, same output as DateTimeFormatter.ISO_LOCAL_DATE_TIME
+    public JsonBuffer dateTime(LocalDateTime value) {
+        if (value == null) {
+            return ascii("null");
+        }
+        if (value.getYear() < 0 || value.getYear() > 9999) {
+            return string(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value)); // Rare, keep the exact formatter
+        }
+        ensureCapacity(32);
+        bytes[size++] = '"';
+        digits(value.getYear(), 4);
+        bytes[size++] = '-';
+        digits(value.getMonthValue(), 2);
+        bytes[size++] = '-';
+        digits(value.getDayOfMonth(), 2);
+        bytes[size++] = 'T';
+        digits(value.getHour(), 2);
+        bytes[size++] = ':';
+        digits(value.getMinute(), 2);
+        bytes[size++] = ':';
+        digits(value.getSecond(), 2);
+        int nano = value.getNano();
+        if (nano != 0) {
+            // Fraction without trailing zeros
+            int fractionDigits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                fractionDigits--;
+            }
+            bytes[size++] = '.';
+            digits(nano, fractionDigits);
+        }
+        bytes[size++] = '"';
+        return this;
+    }
+
+    private void digits(int value, int width) {
+        for (int i = size + width - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += width;
+    }
+
+    private void escapeAscii(char c) {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+            bytes[size++] = (byte) c;
+            return;
+        }
+        char shortEscape = switch (c) {
+            case '"' -> '"';
+            case '\\' -> '\\';
+            case '\n' -> 'n';
+            case '\r' -> 'r';
+            case '\t' -> 't';
+            case '\b' -> 'b';
+            case '\f' -> 'f';
+            default -> 0;
+        };
+        if (shortEscape == 0) {
+            unicodeEscape(c);
+            return;
+        }
+        ensureCapacity(2);
+        bytes[size++] = '\\';
+        bytes[size++] = (byte) shortEscape;
+    }
+
+    private void unicodeEscape(char c) {
+        ensureCapacity(6);
+        bytes[size++] = '\\';
+        bytes[size++] = 'u';
+        bytes[size++] = HEX[c >> 12];
+        bytes[size++] = HEX[(c >> 8) & 0xF];
+        bytes[size++] = HEX[(c >> 4) & 0xF];
+        bytes[size++] = HEX[c & 0xF];
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.midou.ben.bankingapp.model;
 
+import com.midou.ben.bankingapp.utils.OwnerNameNormalizer;
 import jakarta.persistence.*;
 import lombok.Data; // Includes @Getter, @Setter, @ToString, @EqualsAndHashCode, @RequiredArgsConstructor
 import lombok.NoArgsConstructor;
@@ -7,7 +8,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts",
+        indexes = @Index(name = "idx_accounts_owner_search", columnList = "normalized_owner_name, account_number")) // Owner search, keyset order
 @Data // Lombok annotation for boilerplate code
 @NoArgsConstructor // Needed by JPA
 public class Account {
@@ -22,6 +24,11 @@ public class Account {
     @Column(nullable = false, length = 100)
     private String ownerName;
 
+    // Search key, see OwnerNameNormalizer. Mapped nullable so the column can be added to a populated table;
+    // OwnerNameBackfill fills the older rows and then adds the NOT NULL constraint
+    @Column(length = 100)
+    private String normalizedOwnerName;
+
     @Column(nullable = false, precision = 19, scale = 4) // Good precision for currency
     private BigDecimal balance;
 
@@ -47,10 +54,12 @@ public class Account {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        normalizedOwnerName = OwnerNameNormalizer.normalize(ownerName);
     }
 
     @PreUpdate // Before updating an existing record
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        normalizedOwnerName = OwnerNameNormalizer.normalize(ownerName);
     }
 }
\ No newline at end of file
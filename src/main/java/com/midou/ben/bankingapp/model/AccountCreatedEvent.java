@@ -0,0 +1,7 @@
+package com.midou.ben.bankingapp.model;
+
+// Published by the service when an account is created; listeners react once the transaction commits
+public record AccountCreatedEvent(
+        Account account
+) {
+}
@@ -0,0 +1,7 @@
+package com.midou.ben.bankingapp.model;
+
+// Published by the service whenever an account balance changes; listeners react once the transaction commits
+public record AccountUpdatedEvent(
+        Account account
+) {
+}
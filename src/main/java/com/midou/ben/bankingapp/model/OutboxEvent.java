@@ -0,0 +1,54 @@
+package com.midou.ben.bankingapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events",
+        indexes = @Index(name = "idx_outbox_events_pending", columnList = "published_at, id")) // Relay scans pending rows in id order
+@Data
+@NoArgsConstructor // Needed by JPA
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // Monotonic id gives the publishing order
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR) // Plain varchar, so new event types need no schema change
+    @Column(nullable = false, length = 30)
+    private OutboxEventType eventType;
+
+    @Column(nullable = false, precision = 19, scale = 4) // Amount moved by the operation
+    private BigDecimal amount;
+
+    @Column(nullable = false, precision = 19, scale = 4) // Balance after the operation
+    private BigDecimal balance;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    // Null until the relay has handed the event to the sink
+    private LocalDateTime publishedAt;
+
+    // Constructor for recording a balance change of the given account
+    public OutboxEvent(Account account, OutboxEventType eventType, BigDecimal amount) {
+        this.accountNumber = account.getAccountNumber();
+        this.eventType = eventType;
+        this.amount = amount;
+        this.balance = account.getBalance();
+    }
+
+    @PrePersist // Before saving for the first time
+    protected void onCreate() {
+        occurredAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,9 @@
+package com.midou.ben.bankingapp.model;
+
+public enum OutboxEventType {
+    ACCOUNT_CREATED,
+    DEPOSIT,
+    WITHDRAWAL,
+    INTEREST,
+    FEE
+}
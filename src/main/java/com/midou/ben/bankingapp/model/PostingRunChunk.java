@@ -0,0 +1,38 @@
+package com.midou.ben.bankingapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Checkpoint of a posting run: one row per completed id range, written in the same transaction as its postings
+@Entity
+@Table(name = "posting_run_chunks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_posting_run_chunks_run_start", columnNames = {"run_id", "chunk_start"}))
+@Data
+@NoArgsConstructor // Needed by JPA
+public class PostingRunChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String runId;
+
+    @Column(nullable = false) // First account id of the range (inclusive)
+    private Long chunkStart;
+
+    @Column(nullable = false) // Last account id of the range (exclusive)
+    private Long chunkEnd;
+
+    @Column(nullable = false)
+    private Integer accountsPosted;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,45 @@
+package com.midou.ben.bankingapp.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// Id range and chunk size of a posting run, fixed when the run first starts so its checkpoints keep matching on resume
+@Entity
+@Table(name = "posting_run_plans",
+        uniqueConstraints = @UniqueConstraint(name = "uk_posting_run_plans_run", columnNames = "run_id"))
+@Data
+@NoArgsConstructor // Needed by JPA
+public class PostingRunPlan {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String runId;
+
+    // Smallest and largest account id when the run started; null when there was no account
+    private Long minId;
+
+    private Long maxId;
+
+    @Column(nullable = false)
+    private Integer chunkSize;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public PostingRunPlan(String runId, Long minId, Long maxId, int chunkSize) {
+        this.runId = runId;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.chunkSize = chunkSize;
+    }
+
+    @PrePersist // Before saving for the first time
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,6 @@
+package com.midou.ben.bankingapp.model;
+
+public enum PostingType {
+    INTEREST,
+    FEE
+}
@@ -0,0 +1,40 @@
+package com.midou.ben.bankingapp.outbox;
+
+import com.midou.ben.bankingapp.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process stand-in for a message broker: subscribers are called synchronously, in order,
+ * for every published event. Selected with {@code app.outbox.sink=memory} (the default).
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryOutboxEventSink implements OutboxEventSink {
+
+    private final List<Consumer<OutboxEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<OutboxEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<OutboxEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            for (Consumer<OutboxEvent> subscriber : subscribers) {
+                subscriber.accept(event); // A failing subscriber fails the batch so it gets redelivered
+            }
+        }
+        log.debug("Published {} outbox events to {} subscribers", events.size(), subscribers.size());
+    }
+}
@@ -0,0 +1,15 @@
+package com.midou.ben.bankingapp.outbox;
+
+import com.midou.ben.bankingapp.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the events drained by {@link OutboxRelay}.
+ * Events are handed over in id order; a sink must either accept the whole batch or throw,
+ * in which case the batch is retried on the next relay run (at-least-once delivery).
+ */
+public interface OutboxEventSink {
+
+    void publish(List<OutboxEvent> events);
+}
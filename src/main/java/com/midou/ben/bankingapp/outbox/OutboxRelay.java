@@ -0,0 +1,154 @@
+package com.midou.ben.bankingapp.outbox;
+
+import com.midou.ben.bankingapp.model.OutboxEvent;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.repository.OutboxEventRepository;
+import com.midou.ben.bankingapp.repository.OutboxEventRepository.OutboxBacklog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox table to the configured {@link OutboxEventSink}.
+ * Each batch is claimed, published and marked in a single transaction: if the sink or the commit fails,
+ * the batch stays pending and is sent again on the next run, so delivery is at-least-once.
+ * Events of the same account are delivered in the order they were written: balance changes hold the account
+ * row lock until they commit, so a later event of an account always gets a higher id and commits after the
+ * earlier one. Batches are claimed with row locks and only published when they start at the head of the
+ * outbox, so a second relay neither publishes them twice nor overtakes a batch still in flight.
+ * With partitioning, each node drains the outboxes of the partition databases it hosts: a partition has a single
+ * holder, and its pending events move with it on a handover, so no outbox is drained twice or left behind.
+ */
+@Component
+@Lazy(false) // Nothing else references the relay, it must start even with lazy initialization
+@Slf4j
+public class OutboxRelay {
+
+    private static final int CONTENDED = -1;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventSink outboxEventSink;
+    private final PartitionStore partitionStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Counter contendedCounter;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxEventSink outboxEventSink,
+                       PartitionStore partitionStore,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batch-size:100}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventSink = outboxEventSink;
+        this.partitionStore = partitionStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.publishedCounter = meterRegistry.counter("bankingapp.outbox.published");
+        this.failureCounter = meterRegistry.counter("bankingapp.outbox.failures");
+        this.contendedCounter = meterRegistry.counter("bankingapp.outbox.contended");
+        Gauge.builder("bankingapp.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest event not yet handed to the sink")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("bankingapp.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Number of events waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relayPendingEvents() {
+        for (int partition : partitionStore.heldPartitions()) {
+            partitionStore.runIfHeld(partition, this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            int published;
+            do {
+                published = relayBatch();
+            } while (published == batchSize); // Keep draining while full batches come back
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            log.warn("Outbox relay failed, pending events will be retried: {}", e.getMessage());
+        }
+    }
+
+    // Publishes one batch and returns the number of events handed to the sink
+    public int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxEventRepository.claimPendingBatch(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            if (!batch.get(0).getId().equals(outboxEventRepository.findFirstPendingId())) {
+                // Older events are claimed by another relay (a concurrent relayBatch call on this node):
+                // publishing this batch now could overtake them, so leave it for a later run
+                status.setRollbackOnly();
+                return CONTENDED;
+            }
+            outboxEventSink.publish(batch);
+            outboxEventRepository.markPublished(batch.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now());
+            return batch.size();
+        });
+        if (published != null && published == CONTENDED) {
+            contendedCounter.increment();
+            log.debug("Outbox head claimed by another relay, skipping this run");
+            return 0;
+        }
+        int count = published != null ? published : 0;
+        if (count > 0) {
+            publishedCounter.increment(count);
+            log.debug("Relayed {} outbox events", count);
+        }
+        return count;
+    }
+
+    public long getLagMillis() {
+        return lagMillis.get();
+    }
+
+    // Totals over the hosted partitions: pending events summed, lag of the oldest one.
+    // On its own, slower schedule: the gauges are scraped every few seconds, not every relay poll
+    @Scheduled(fixedDelayString = "${app.outbox.lag-refresh-interval-ms:5000}")
+    public void refreshLag() {
+        long pending = 0;
+        long lag = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (int partition : partitionStore.heldPartitions()) {
+            try {
+                Optional<OutboxBacklog> backlog = partitionStore.callIfHeld(partition, outboxEventRepository::findBacklog);
+                if (backlog.isEmpty()) {
+                    continue; // Handed over since the listing
+                }
+                pending += backlog.get().getPending();
+                if (backlog.get().getOldestOccurredAt() != null) {
+                    lag = Math.max(lag, Duration.between(backlog.get().getOldestOccurredAt(), now).toMillis());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh outbox lag: {}", e.getMessage());
+            }
+        }
+        pendingEvents.set(pending);
+        lagMillis.set(lag);
+    }
+}
@@ -0,0 +1,25 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.midou.ben.bankingapp.exception.ClusterException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Rejects /api/v1/cluster calls without the cluster secret with 401, before any membership is read or changed
+@Component
+@RequiredArgsConstructor
+public class ClusterAuthInterceptor implements HandlerInterceptor {
+
+    private final ClusterCredentials credentials;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!credentials.isValid(request.getHeader(ClusterCredentials.HEADER))) {
+            throw new ClusterException(ErrorCode.CLUSTER_UNAUTHORIZED);
+        }
+        return true;
+    }
+}
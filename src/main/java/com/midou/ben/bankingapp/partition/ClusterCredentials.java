@@ -0,0 +1,37 @@
+package com.midou.ben.bankingapp.partition;
+
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared secret proving that a call comes from a cluster node: membership changes, membership exchanges and
+ * forwarded account requests carry it, anything else is treated as a client. Without a configured secret
+ * (partitioning off) no call is trusted.
+ */
+@Component
+public class ClusterCredentials {
+
+    public static final String HEADER = "X-Cluster-Secret";
+
+    private final byte[] secret;
+
+    public ClusterCredentials(PartitionProperties properties) {
+        String configured = properties.getClusterSecret();
+        if (properties.isEnabled() && (configured == null || configured.isBlank())) {
+            throw new IllegalStateException("app.partition.cluster-secret must be set when partitioning is enabled");
+        }
+        this.secret = configured == null || configured.isBlank() ? null : configured.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean isValid(String presented) {
+        return secret != null && presented != null
+                && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8)); // Constant time
+    }
+
+    public HttpRequest.Builder sign(HttpRequest.Builder request) {
+        return request.header(HEADER, new String(secret, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,228 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.midou.ben.bankingapp.dto.ClusterMembershipUpdate;
+import com.midou.ben.bankingapp.dto.ClusterView;
+import com.midou.ben.bankingapp.exception.ClusterException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Which node owns which partition. Accounts hash onto a fixed number of partitions, each with its own
+ * database; partitions are spread over the current nodes with a {@link ConsistentHashRing}.
+ * Ownership is where a partition should be: its database is hosted by one node at a time ({@link PartitionStore})
+ * and follows ownership through {@link PartitionHandover}, so two nodes briefly disagreeing about an owner only
+ * delays the handover, it never gives a partition two writers.
+ * Without partitioning there is a single partition 0, owned locally, and the code paths stay the same.
+ * <p>
+ * Memberships are totally ordered by version, then by their node list: two changes made concurrently on
+ * different nodes both get the next version, and every node keeps the same one of them instead of each keeping
+ * its own. Broadcasts are best effort; {@link MembershipSync} pulls the peers' memberships periodically,
+ * so a node that missed one catches up. The losing change of a tie is dropped and has to be made again.
+ */
+@Component
+@Slf4j
+public class ClusterMembership {
+
+    private final PartitionProperties properties;
+    private final Set<String> allowedNodeUrls = new HashSet<>();
+    private final Counter movedCounter;
+    private volatile Assignment assignment;
+
+    public ClusterMembership(PartitionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        if (properties.isEnabled() && !properties.getNodes().containsKey(properties.getNodeId())) {
+            throw new IllegalStateException("app.partition.nodes must contain this node's id " + properties.getNodeId());
+        }
+        properties.getNodes().values().forEach(url -> allowedNodeUrls.add(withoutTrailingSlash(url)));
+        properties.getAllowedNodeUrls().forEach(url -> allowedNodeUrls.add(withoutTrailingSlash(url)));
+        this.assignment = assign(1, properties.isEnabled() ? properties.getNodes() : Map.of(properties.getNodeId(), ""));
+        this.movedCounter = meterRegistry.counter("bankingapp.partition.moves");
+        Gauge.builder("bankingapp.partition.owned", this, membership -> membership.localPartitions().size())
+                .description("Number of partitions owned by this node")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String nodeId() {
+        return properties.getNodeId();
+    }
+
+    public int partitionOf(String accountNumber) {
+        return isEnabled() ? ConsistentHashRing.partitionOf(accountNumber, properties.getCount()) : 0;
+    }
+
+    public String ownerOf(int partition) {
+        return assignment.owners[partition];
+    }
+
+    public boolean isLocal(int partition) {
+        return nodeId().equals(ownerOf(partition));
+    }
+
+    public String nodeUrl(String nodeId) {
+        return assignment.nodes.get(nodeId);
+    }
+
+    // Partitions this node owns; it hosts them once handed over, see PartitionStore
+    public List<Integer> localPartitions() {
+        return assignment.localPartitions;
+    }
+
+    // Every partition, for reads that have to see all accounts (owner search)
+    public List<Integer> allPartitions() {
+        return IntStream.range(0, assignment.owners.length).boxed().toList();
+    }
+
+    /**
+     * Every other node that may host partitions: the current members, plus the configured and allowed nodes, since a
+     * node that left keeps its partitions until their new owners have pulled them.
+     */
+    public List<String> peerUrls() {
+        Assignment current = assignment;
+        Set<String> peers = new TreeSet<>(allowedNodeUrls);
+        current.nodes.values().forEach(url -> peers.add(withoutTrailingSlash(url)));
+        String ownUrl = current.nodes.getOrDefault(nodeId(), properties.getNodes().get(nodeId()));
+        if (ownUrl != null) {
+            peers.remove(withoutTrailingSlash(ownUrl));
+        }
+        return List.copyOf(peers);
+    }
+
+    public ClusterMembershipUpdate current() {
+        Assignment current = assignment;
+        return new ClusterMembershipUpdate(current.version, current.nodes);
+    }
+
+    // Next membership with the node added (or its URL changed); apply it, then send it to the other nodes
+    public synchronized ClusterMembershipUpdate join(String nodeId, String url) {
+        requireEnabled();
+        if (nodeId == null || nodeId.isBlank() || url == null || url.isBlank()) {
+            throw new ClusterException(ErrorCode.INVALID_MEMBERSHIP_CHANGE, "a node needs an id and a URL");
+        }
+        requireAllowed(url);
+        Map<String, String> nodes = new TreeMap<>(assignment.nodes);
+        nodes.put(nodeId, url);
+        return next(nodes);
+    }
+
+    public synchronized ClusterMembershipUpdate leave(String nodeId) {
+        requireEnabled();
+        if (!assignment.nodes.containsKey(nodeId)) {
+            throw new ClusterException(ErrorCode.INVALID_MEMBERSHIP_CHANGE, "unknown node " + nodeId);
+        }
+        if (assignment.nodes.size() == 1) {
+            throw new ClusterException(ErrorCode.INVALID_MEMBERSHIP_CHANGE, "the last node cannot leave");
+        }
+        Map<String, String> nodes = new TreeMap<>(assignment.nodes);
+        nodes.remove(nodeId);
+        return next(nodes);
+    }
+
+    // Applies a membership received from another node; memberships not ordered after the current one are ignored
+    public synchronized boolean apply(ClusterMembershipUpdate update) {
+        requireEnabled();
+        if (update.nodes() == null || update.nodes().isEmpty() || compare(update, current()) <= 0) {
+            return false;
+        }
+        update.nodes().values().forEach(this::requireAllowed);
+        rebalance(assign(update.version(), update.nodes()));
+        return true;
+    }
+
+    public ClusterView view(List<Integer> heldPartitions) {
+        Assignment current = assignment;
+        Map<String, List<Integer>> partitionsByNode = new TreeMap<>();
+        current.nodes.keySet().forEach(node -> partitionsByNode.put(node, new ArrayList<>()));
+        for (int partition = 0; partition < current.owners.length; partition++) {
+            partitionsByNode.get(current.owners[partition]).add(partition);
+        }
+        return new ClusterView(nodeId(), isEnabled(), current.version, current.nodes, partitionsByNode, heldPartitions);
+    }
+
+    // Version first; equal versions (concurrent changes) are ordered by their canonical node list, which every
+    // node computes the same way. Compared in full rather than hashed, so different node sets never tie
+    static int compare(ClusterMembershipUpdate left, ClusterMembershipUpdate right) {
+        int byVersion = Long.compare(left.version(), right.version());
+        return byVersion != 0 ? byVersion : canonical(left.nodes()).compareTo(canonical(right.nodes()));
+    }
+
+    private static String canonical(Map<String, String> nodes) {
+        StringBuilder canonical = new StringBuilder();
+        new TreeMap<>(nodes).forEach((id, url) -> canonical.append(id).append('=').append(url).append('\n'));
+        return canonical.toString();
+    }
+
+    private ClusterMembershipUpdate next(Map<String, String> nodes) {
+        Assignment next = assign(assignment.version + 1, nodes);
+        rebalance(next);
+        return new ClusterMembershipUpdate(next.version, next.nodes);
+    }
+
+    private void rebalance(Assignment next) {
+        Assignment previous = assignment;
+        int moved = 0;
+        for (int partition = 0; partition < next.owners.length; partition++) {
+            if (!previous.owners[partition].equals(next.owners[partition])) {
+                moved++;
+                log.debug("Partition {} moves from {} to {}", partition, previous.owners[partition], next.owners[partition]);
+            }
+        }
+        assignment = next;
+        movedCounter.increment(moved);
+        log.info("Cluster membership v{}: nodes {}, {} partitions moved, {} owned by {}",
+                next.version, next.nodes.keySet(), moved, next.localPartitions.size(), nodeId());
+    }
+
+    private Assignment assign(long version, Map<String, String> nodes) {
+        Map<String, String> sortedNodes = Collections.unmodifiableMap(new TreeMap<>(nodes));
+        int count = isEnabled() ? properties.getCount() : 1;
+        String[] owners = new String[count];
+        List<Integer> local = new ArrayList<>();
+        ConsistentHashRing ring = new ConsistentHashRing(sortedNodes.keySet(), properties.getVirtualNodes());
+        for (int partition = 0; partition < count; partition++) {
+            owners[partition] = ring.ownerOf(partition);
+            if (owners[partition].equals(nodeId())) {
+                local.add(partition);
+            }
+        }
+        return new Assignment(version, sortedNodes, owners, List.copyOf(local));
+    }
+
+    // Node URLs are where account requests get forwarded to: only the configured ones are accepted
+    private void requireAllowed(String url) {
+        if (url == null || !allowedNodeUrls.contains(withoutTrailingSlash(url))) {
+            throw new ClusterException(ErrorCode.INVALID_MEMBERSHIP_CHANGE, "node URL not allowed " + url);
+        }
+    }
+
+    private static String withoutTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private void requireEnabled() {
+        if (!isEnabled()) {
+            throw new ClusterException(ErrorCode.INVALID_MEMBERSHIP_CHANGE, "partitioning is disabled");
+        }
+    }
+
+    // Immutable snapshot, replaced as a whole on every membership change
+    private record Assignment(long version, Map<String, String> nodes, String[] owners, List<Integer> localPartitions) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.midou.ben.bankingapp.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class ClusterWebConfig implements WebMvcConfigurer {
+
+    private final ClusterAuthInterceptor clusterAuthInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(clusterAuthInterceptor).addPathPatterns("/api/v1/cluster", "/api/v1/cluster/**");
+    }
+}
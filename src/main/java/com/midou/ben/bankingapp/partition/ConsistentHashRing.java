@@ -0,0 +1,51 @@
+package com.midou.ben.bankingapp.partition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning partitions to nodes. Each node is placed at several points of a 64-bit ring;
+ * a partition belongs to the first node point at or after its own position. When a node joins it only takes
+ * partitions from the others, and when it leaves only its own partitions move, so a membership change
+ * moves about count / nodes partitions instead of reshuffling everything.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        for (String nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+
+    public String ownerOf(int partition) {
+        Map.Entry<Long, String> point = points.ceilingEntry(hash("partition-" + partition));
+        return (point != null ? point : points.firstEntry()).getValue(); // Wrap around
+    }
+
+    // Partition of an account; stable for the life of the data, independent of the nodes
+    public static int partitionOf(String accountNumber, int partitionCount) {
+        return (int) Math.floorMod(hash(accountNumber), (long) partitionCount);
+    }
+
+    // FNV-1a over the UTF-8 bytes, then the SplitMix64 finalizer to spread nearby keys over the whole ring
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,67 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.midou.ben.bankingapp.dto.ClusterMembershipUpdate;
+import com.midou.ben.bankingapp.exception.ClusterException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Anti-entropy for the membership: every node periodically pulls the membership of its peers and keeps the
+ * greatest one, and pushes its own to peers found behind. Lost broadcasts and concurrent changes thus end in
+ * the same membership on every reachable node, instead of views that stay split.
+ */
+@Component
+@Slf4j
+public class MembershipSync {
+
+    private final ClusterMembership clusterMembership;
+    private final PartitionForwarder forwarder;
+    private final Counter adoptedCounter;
+
+    public MembershipSync(ClusterMembership clusterMembership, PartitionForwarder forwarder, MeterRegistry meterRegistry) {
+        this.clusterMembership = clusterMembership;
+        this.forwarder = forwarder;
+        this.adoptedCounter = meterRegistry.counter("bankingapp.partition.membership.adopted");
+    }
+
+    @Scheduled(fixedDelayString = "${app.partition.sync-interval-ms:5000}")
+    public void sync() {
+        if (!clusterMembership.isEnabled()) {
+            return;
+        }
+        Map<String, String> peers = new TreeMap<>(clusterMembership.current().nodes());
+        peers.remove(clusterMembership.nodeId());
+        for (String peerUrl : peers.values()) {
+            Optional<ClusterMembershipUpdate> theirs = forwarder.fetchMembership(peerUrl);
+            if (theirs.isEmpty()) {
+                continue;
+            }
+            ClusterMembershipUpdate ours = clusterMembership.current();
+            int order = ClusterMembership.compare(theirs.get(), ours);
+            if (order > 0) {
+                adopt(theirs.get(), peerUrl);
+            } else if (order < 0) {
+                forwarder.broadcast(ours, List.of(peerUrl)); // The peer is behind: hand it ours right away
+            }
+        }
+    }
+
+    private void adopt(ClusterMembershipUpdate update, String peerUrl) {
+        try {
+            if (clusterMembership.apply(update)) {
+                adoptedCounter.increment();
+                log.info("Adopted cluster membership v{} pulled from {}", update.version(), peerUrl);
+            }
+        } catch (ClusterException e) {
+            log.warn("Ignored membership v{} pulled from {}: {}", update.version(), peerUrl, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(PartitionProperties.class)
+@Slf4j
+public class PartitionConfig {
+
+    // One pool per partition behind a routing datasource; replaces the auto-configured spring.datasource.
+    // Each node has its own database per partition ({node} in the URL) and only uses those PartitionStore holds
+    @Bean
+    @ConditionalOnProperty(name = "app.partition.enabled", havingValue = "true")
+    public DataSource partitionRoutingDataSource(PartitionProperties properties) {
+        if (!properties.getDatasourceUrl().startsWith("jdbc:h2:")) {
+            // Handover copies partitions with H2's SCRIPT and RUNSCRIPT, which no other database understands
+            throw new IllegalStateException("app.partition.datasource-url must be an H2 URL when partitioning is enabled, got "
+                    + properties.getDatasourceUrl());
+        }
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql"));
+        Map<Object, Object> partitions = new HashMap<>();
+        for (int partition = 0; partition < properties.getCount(); partition++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("partition-" + partition);
+            dataSource.setJdbcUrl(properties.getDatasourceUrl()
+                    .replace("{node}", properties.getNodeId())
+                    .replace("{partition}", Integer.toString(partition)));
+            dataSource.setUsername(properties.getUsername());
+            dataSource.setPassword(properties.getPassword());
+            dataSource.setMaximumPoolSize(properties.getPoolSize());
+            dataSource.setMinimumIdle(1);
+            schema.execute(dataSource); // Idempotent; keeps what a file database had from a previous run
+            partitions.put(partition, dataSource);
+        }
+        PartitionRoutingDataSource routing = new PartitionRoutingDataSource();
+        routing.setTargetDataSources(partitions);
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        log.info("Node {} started with {} partition datasources", properties.getNodeId(), partitions.size());
+        return routing;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.partition.enabled", havingValue = "true")
+    public FilterRegistrationBean<PartitionRoutingFilter> partitionRoutingFilter(PartitionProperties properties,
+                                                                                 ClusterMembership clusterMembership,
+                                                                                 PartitionStore partitionStore,
+                                                                                 ClusterCredentials credentials,
+                                                                                 PartitionForwarder forwarder,
+                                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<PartitionRoutingFilter> registration = new FilterRegistrationBean<>(
+                new PartitionRoutingFilter(clusterMembership, partitionStore, credentials, forwarder, properties.getRouting(), objectMapper));
+        registration.addUrlPatterns("/api/v1/accounts", "/api/v1/accounts/*");
+        return registration;
+    }
+}
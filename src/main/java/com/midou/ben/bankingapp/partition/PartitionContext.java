@@ -0,0 +1,53 @@
+package com.midou.ben.bankingapp.partition;
+
+import java.util.function.Supplier;
+
+/**
+ * Partition the current thread works on, read by {@link PartitionRoutingDataSource} when a transaction
+ * opens its connection. Bind it before the transaction starts: a connection already taken stays on its partition.
+ */
+public final class PartitionContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private PartitionContext() {
+    }
+
+    // Bound partition, or null outside any partition
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callIn(int partition, Supplier<T> action) {
+        Integer previous = bind(partition);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runIn(int partition, Runnable action) {
+        Integer previous = bind(partition);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    // For callers that throw checked exceptions: bind, then restore the returned value in a finally block
+    public static Integer bind(int partition) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(partition);
+        return previous;
+    }
+
+    public static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
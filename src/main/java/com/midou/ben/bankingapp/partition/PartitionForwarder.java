@@ -0,0 +1,269 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.midou.ben.bankingapp.dto.ClusterMembershipUpdate;
+import com.midou.ben.bankingapp.dto.HostedAccountsResponse;
+import com.midou.ben.bankingapp.dto.HostedOwnerNamesResponse;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import com.midou.ben.bankingapp.json.AccountJsonWriter;
+import com.midou.ben.bankingapp.search.OwnerSearchQuery;
+import com.midou.ben.bankingapp.search.PartitionMatches;
+import com.midou.ben.bankingapp.utils.AccountMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP calls between nodes: proxies account requests to the partition owner, sends membership changes, moves
+ * partition databases and queries the partitions other nodes host.
+ */
+@Component
+@Slf4j
+public class PartitionForwarder {
+
+    // Set on proxied requests, with the cluster secret; the receiving node serves them even if it disagrees
+    // about the owner, so no loops. Without a valid secret the header is ignored
+    public static final String FORWARDED_BY_HEADER = "X-Partition-Forwarded-By";
+    // Address of the client as seen by the forwarding node, only trusted on requests carrying the cluster secret
+    public static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SYNC_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration HANDOVER_TIMEOUT = Duration.ofSeconds(60); // A whole partition's data
+    // Managed by the HTTP client itself, or rewritten below
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade", "keep-alive", "transfer-encoding", "te",
+            "trailer", FORWARDED_FOR_HEADER.toLowerCase(), FORWARDED_BY_HEADER.toLowerCase(), ClusterCredentials.HEADER.toLowerCase());
+    private static final List<String> RELAYED_RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.RETRY_AFTER, HttpHeaders.LOCATION);
+
+    private final ClusterMembership clusterMembership;
+    private final ClusterCredentials credentials;
+    private final ObjectMapper objectMapper;
+    private final byte[] ownerUnavailableBody;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    public PartitionForwarder(ClusterMembership clusterMembership, ClusterCredentials credentials,
+                              ObjectMapper objectMapper, AccountJsonWriter jsonWriter) {
+        this.clusterMembership = clusterMembership;
+        this.credentials = credentials;
+        this.objectMapper = objectMapper;
+        this.ownerUnavailableBody = jsonWriter.fixedError(ErrorCode.PARTITION_OWNER_UNAVAILABLE);
+    }
+
+    // Replays the request on the owner and copies its status, headers that matter and body back; 503 when the owner is unreachable
+    public void forward(HttpServletRequest request, byte[] body, String ownerUrl, HttpServletResponse response) throws IOException {
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(URI.create(ownerUrl + pathAndQuery(request)))
+                .timeout(TIMEOUT)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!SKIPPED_REQUEST_HEADERS.contains(name.toLowerCase())) {
+                Collections.list(request.getHeaders(name)).forEach(value -> forwarded.header(name, value));
+            }
+        }
+        // Only the address this node saw: a client's own X-Forwarded-For is dropped, never passed on as trusted
+        forwarded.header(FORWARDED_FOR_HEADER, request.getRemoteAddr());
+        forwarded.header(FORWARDED_BY_HEADER, clusterMembership.nodeId());
+        credentials.sign(forwarded);
+
+        HttpResponse<byte[]> owned;
+        try {
+            owned = client.send(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            log.warn("Could not forward {} {} to {}: {}", request.getMethod(), request.getRequestURI(), ownerUrl, e.toString());
+            writeBody(response, ErrorCode.PARTITION_OWNER_UNAVAILABLE.getStatus().value(), MediaType.APPLICATION_PROBLEM_JSON_VALUE, ownerUnavailableBody);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding to " + ownerUrl, e);
+        }
+        for (String name : RELAYED_RESPONSE_HEADERS) {
+            owned.headers().allValues(name).forEach(value -> response.addHeader(name, value));
+        }
+        writeBody(response, owned.statusCode(), null, owned.body());
+    }
+
+    public void redirect(HttpServletRequest request, String ownerUrl, HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT); // Keeps the method and body, unlike 302
+        response.setHeader(HttpHeaders.LOCATION, ownerUrl + pathAndQuery(request));
+    }
+
+    // Best effort: a node that misses an update catches up on its next membership pull (MembershipSync)
+    public void broadcast(ClusterMembershipUpdate update, Collection<String> nodeUrls) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(update);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize membership", e);
+        }
+        for (String nodeUrl : nodeUrls) {
+            HttpRequest request = credentials.sign(HttpRequest.newBuilder(URI.create(nodeUrl + "/api/v1/cluster/membership")))
+                    .timeout(TIMEOUT)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status != 200) {
+                    log.warn("Node {} answered {} to membership v{}", nodeUrl, status, update.version());
+                }
+            } catch (IOException e) {
+                log.warn("Could not send membership v{} to {}: {}", update.version(), nodeUrl, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Membership of another node, empty when it cannot be reached
+    public Optional<ClusterMembershipUpdate> fetchMembership(String nodeUrl) {
+        return get(nodeUrl, "/api/v1/cluster/membership", SYNC_TIMEOUT, ClusterMembershipUpdate.class);
+    }
+
+    // Owner search over the partitions another node hosts; empty when it cannot be reached or fails
+    public Optional<PartitionMatches> searchAccounts(String nodeUrl, OwnerSearchQuery query) {
+        String path = "/api/v1/cluster/accounts?name=" + encode(query.normalizedName())
+                + "&prefix=" + query.prefix()
+                + "&afterName=" + encode(query.after().normalizedOwnerName())
+                + "&afterNumber=" + encode(query.after().accountNumber())
+                + "&limit=" + query.limit();
+        return get(nodeUrl, path, TIMEOUT, HostedAccountsResponse.class)
+                .map(hosted -> new PartitionMatches(hosted.partitions(),
+                        hosted.accounts().stream().map(AccountMapper::mapToAccount).toList()));
+    }
+
+    // Owner names of the partitions another node hosts; empty when it cannot be reached or fails
+    public Optional<HostedOwnerNamesResponse> fetchOwnerNames(String nodeUrl) {
+        return get(nodeUrl, "/api/v1/cluster/owner-names", TIMEOUT, HostedOwnerNamesResponse.class);
+    }
+
+    // Asks a node for a partition's database, see PartitionStore#export
+    public PartitionExport fetchExport(String nodeUrl, int partition) {
+        HttpRequest request = credentials.sign(HttpRequest.newBuilder(URI.create(
+                        nodeUrl + "/api/v1/cluster/partitions/" + partition + "/export?node=" + encode(clusterMembership.nodeId()))))
+                .timeout(HANDOVER_TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return switch (response.statusCode()) {
+                case 200 -> new PartitionExport(ExportStatus.EXPORTED, response.body());
+                case 404 -> new PartitionExport(ExportStatus.NOT_HOSTED, null);
+                case 409 -> new PartitionExport(ExportStatus.STILL_OWNED, null);
+                default -> {
+                    log.warn("Node {} answered {} to the export of partition {}", nodeUrl, response.statusCode(), partition);
+                    yield new PartitionExport(ExportStatus.UNREACHABLE, null);
+                }
+            };
+        } catch (IOException e) {
+            log.debug("Could not ask {} for partition {}: {}", nodeUrl, partition, e.toString());
+            return new PartitionExport(ExportStatus.UNREACHABLE, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new PartitionExport(ExportStatus.UNREACHABLE, null);
+        }
+    }
+
+    // Tells the former holder its export was loaded: true once it dropped its copy, false when the export went
+    // elsewhere in between, empty when the outcome is unknown (to be confirmed again)
+    public Optional<Boolean> confirmExport(String nodeUrl, int partition) {
+        HttpRequest request = credentials.sign(HttpRequest.newBuilder(URI.create(
+                        nodeUrl + "/api/v1/cluster/partitions/" + partition + "/confirm?node=" + encode(clusterMembership.nodeId()))))
+                .timeout(TIMEOUT)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 200 || status == 409) {
+                return Optional.of(status == 200);
+            }
+            log.warn("Node {} answered {} to the confirmation of partition {}", nodeUrl, status, partition);
+            return Optional.empty();
+        } catch (IOException e) {
+            log.debug("Could not confirm partition {} to {}: {}", partition, nodeUrl, e.toString());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private <T> Optional<T> get(String nodeUrl, String path, Duration timeout, Class<T> type) {
+        HttpRequest request = credentials.sign(HttpRequest.newBuilder(URI.create(nodeUrl + path)))
+                .timeout(timeout)
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                log.warn("Node {} answered {} to {}", nodeUrl, response.statusCode(), path);
+                return Optional.empty();
+            }
+            return Optional.of(objectMapper.readValue(response.body(), type));
+        } catch (IOException e) {
+            log.debug("Could not call {}{}: {}", nodeUrl, path, e.toString());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    // 503 for a request about a partition this node should serve but does not hold yet (handover in progress)
+    public void ownerUnavailable(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        writeBody(response, ErrorCode.PARTITION_OWNER_UNAVAILABLE.getStatus().value(), MediaType.APPLICATION_PROBLEM_JSON_VALUE, ownerUnavailableBody);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    public enum ExportStatus {
+        EXPORTED,    // The node released the partition (or handed its unconfirmed export again)
+        NOT_HOSTED,  // Nothing there
+        STILL_OWNED, // It holds the partition and still owns it in its membership
+        UNREACHABLE
+    }
+
+    public record PartitionExport(ExportStatus status, byte[] script) {
+    }
+
+    private static String pathAndQuery(HttpServletRequest request) {
+        return request.getQueryString() == null ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+    }
+
+    private static void writeBody(HttpServletResponse response, int status, String contentType, byte[] body) throws IOException {
+        response.setStatus(status);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,116 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.midou.ben.bankingapp.partition.PartitionForwarder.ExportStatus;
+import com.midou.ben.bankingapp.partition.PartitionForwarder.PartitionExport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Brings partition databases to their owner. At startup a node hosts the partitions it owns in the configured
+ * membership, taking them from another node that still has them; afterwards it periodically pulls the partitions
+ * it owns but does not host from whichever node has them, see {@link PartitionStore} for the two-phase handover.
+ * Partitions hosted by a node that is down stay unavailable (503) until it is back: nothing else has their data.
+ */
+@Component
+@Slf4j
+public class PartitionHandover {
+
+    private final ClusterMembership clusterMembership;
+    private final PartitionStore partitionStore;
+    private final PartitionForwarder forwarder;
+    private final Counter handoverCounter;
+    private final Map<Integer, String> importedFrom = new ConcurrentHashMap<>(); // Unconfirmed imports -> former holder's URL
+
+    public PartitionHandover(ClusterMembership clusterMembership, PartitionStore partitionStore,
+                             PartitionForwarder forwarder, MeterRegistry meterRegistry) {
+        this.clusterMembership = clusterMembership;
+        this.partitionStore = partitionStore;
+        this.forwarder = forwarder;
+        this.handoverCounter = meterRegistry.counter("bankingapp.partition.handovers");
+    }
+
+    // Before the node serves anything: a partition no reachable node has is started from this node's own database
+    // (empty, or a file kept from a previous run). A node that is down at that moment is assumed not to have it
+    @PostConstruct
+    public void hostOwnedPartitions() {
+        if (!clusterMembership.isEnabled()) {
+            return;
+        }
+        for (int partition : clusterMembership.localPartitions()) {
+            boolean elsewhere = false;
+            for (String peerUrl : clusterMembership.peerUrls()) {
+                PartitionExport export = forwarder.fetchExport(peerUrl, partition);
+                if (export.status() == ExportStatus.EXPORTED) {
+                    load(partition, peerUrl, export.script());
+                    elsewhere = true;
+                    break;
+                }
+                elsewhere |= export.status() == ExportStatus.STILL_OWNED; // Its view differs: pulled once they agree
+            }
+            if (!elsewhere) {
+                partitionStore.hold(partition);
+            }
+        }
+        log.info("Node {} hosts partitions {}", clusterMembership.nodeId(), partitionStore.heldPartitions());
+    }
+
+    @Scheduled(fixedDelayString = "${app.partition.handover-interval-ms:1000}")
+    public void pullOwnedPartitions() {
+        if (!clusterMembership.isEnabled()) {
+            return;
+        }
+        importedFrom.forEach(this::confirm); // Confirmations whose outcome was unknown, owned or not
+        for (int partition : clusterMembership.localPartitions()) {
+            if (partitionStore.isHeld(partition) || importedFrom.containsKey(partition)) {
+                continue;
+            }
+            if (partitionStore.hasPendingExport(partition)) {
+                partitionStore.reclaim(partition); // Came back before the node it was exported to confirmed
+                continue;
+            }
+            for (String peerUrl : clusterMembership.peerUrls()) {
+                PartitionExport export = forwarder.fetchExport(peerUrl, partition);
+                if (export.status() == ExportStatus.EXPORTED) {
+                    load(partition, peerUrl, export.script());
+                    break;
+                }
+            }
+        }
+    }
+
+    private void load(int partition, String holderUrl, byte[] script) {
+        try {
+            if (partitionStore.loadImport(partition, script)) {
+                importedFrom.put(partition, holderUrl);
+                confirm(partition, holderUrl);
+            }
+        } catch (RuntimeException e) {
+            // The holder keeps its copy as the reference and hands it again on the next pull
+            log.warn("Could not load partition {} from {}: {}", partition, holderUrl, e.getMessage());
+        }
+    }
+
+    private void confirm(int partition, String holderUrl) {
+        Optional<Boolean> confirmed = forwarder.confirmExport(holderUrl, partition);
+        if (confirmed.isEmpty()) {
+            return; // Unknown outcome: the import is kept and confirmed again on the next run
+        }
+        importedFrom.remove(partition);
+        if (confirmed.get()) {
+            partitionStore.holdImported(partition);
+            handoverCounter.increment();
+            log.info("Partition {} taken over from {}", partition, holderUrl);
+        } else {
+            partitionStore.dropImport(partition);
+            log.info("Partition {} was handed elsewhere by {} in between, import dropped", partition, holderUrl);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.midou.ben.bankingapp.partition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.partition")
+public class PartitionProperties {
+
+    // Off: a single node on spring.datasource, as before
+    private boolean enabled = false;
+
+    // Fixed number of partitions account numbers are hashed onto; keep it well above the number of nodes
+    private int count = 16;
+
+    // This node's id, must be a key of nodes
+    private String nodeId = "node-1";
+
+    // Initial membership: node id -> base URL, identical on every node
+    private Map<String, String> nodes = new LinkedHashMap<>();
+
+    // Shared by the nodes and required on every /api/v1/cluster call and forwarded request (X-Cluster-Secret)
+    private String clusterSecret;
+
+    // Base URLs a node may join with, on top of the initial nodes; membership naming any other URL is rejected
+    private List<String> allowedNodeUrls = new ArrayList<>();
+
+    // Points per node on the consistent hash ring, smooths the share of partitions each node gets
+    private int virtualNodes = 64;
+
+    // How requests for a partition owned by another node are served
+    private Routing routing = Routing.FORWARD;
+
+    // JDBC URL of this node's database of each partition, {node} is replaced by the node id and {partition} by the
+    // partition number. Embedded: a node only opens its own databases, partitions move between them by handover.
+    // H2 only, since handover uses H2's SCRIPT/RUNSCRIPT; any other URL fails at startup
+    private String datasourceUrl = "jdbc:h2:mem:bankingdb-{node}-p{partition};DB_CLOSE_DELAY=-1";
+    private String username = "sa";
+    private String password = "";
+
+    // Connections per partition datasource
+    private int poolSize = 4;
+
+    public enum Routing {
+        FORWARD,  // Proxy the request to the owner and relay its response
+        REDIRECT  // Answer 307 with the owner's URL (event streams are always redirected)
+    }
+}
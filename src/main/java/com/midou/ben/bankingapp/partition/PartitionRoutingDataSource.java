@@ -0,0 +1,26 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the partition bound in {@link PartitionContext}. There is deliberately no default
+ * target: database access outside a partition fails instead of silently landing in the wrong database.
+ */
+public class PartitionRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return PartitionContext.current();
+    }
+
+    // Called by the container on shutdown (inferred destroy method of the bean)
+    @Override
+    public void close() {
+        getResolvedDataSources().values().forEach(dataSource -> {
+            if (dataSource instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        });
+    }
+}
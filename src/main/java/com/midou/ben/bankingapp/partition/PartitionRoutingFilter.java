@@ -0,0 +1,169 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routing layer in front of AccountController. Finds the account a request is about (path segment, or the
+ * body of an account creation), serves it here with the account's partition bound when this node hosts the
+ * partition's database, and otherwise forwards or redirects it to the owner. Requests not tied to one account
+ * pass through unbound. A partition this node owns but does not host yet (handover in progress) answers 503,
+ * and so does a request forwarded by another node (cluster secret and forwarding header), which is never forwarded
+ * again; forwarded requests keep the original client's address for rate limiting.
+ */
+@RequiredArgsConstructor
+public class PartitionRoutingFilter extends OncePerRequestFilter {
+
+    private static final String ACCOUNTS_PATH = "/api/v1/accounts";
+
+    private final ClusterMembership clusterMembership;
+    private final PartitionStore partitionStore;
+    private final ClusterCredentials credentials;
+    private final PartitionForwarder forwarder;
+    private final PartitionProperties.Routing routing;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        byte[] body = null; // Only read when the account number is in it, or to forward the request
+        String accountNumber = null;
+        if (path.startsWith(ACCOUNTS_PATH + "/")) {
+            int end = path.indexOf('/', ACCOUNTS_PATH.length() + 1);
+            accountNumber = URLDecoder.decode(path.substring(ACCOUNTS_PATH.length() + 1, end < 0 ? path.length() : end), StandardCharsets.UTF_8);
+        } else if (path.equals(ACCOUNTS_PATH) && "POST".equals(request.getMethod())) {
+            body = request.getInputStream().readAllBytes();
+            accountNumber = accountNumberOf(body);
+            request = new CachedBodyRequest(request, body);
+        }
+        if (accountNumber == null || accountNumber.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        int partition = clusterMembership.partitionOf(accountNumber);
+        boolean forwardedByNode = request.getHeader(PartitionForwarder.FORWARDED_BY_HEADER) != null
+                && credentials.isValid(request.getHeader(ClusterCredentials.HEADER));
+        if (forwardedByNode) {
+            request = new ForwardedRequest(request);
+        }
+        if (partitionStore.enter(partition)) {
+            Integer previous = PartitionContext.bind(partition);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                PartitionContext.restore(previous);
+                partitionStore.exit(partition);
+            }
+            return;
+        }
+        if (forwardedByNode || clusterMembership.isLocal(partition)) {
+            forwarder.ownerUnavailable(response); // Ours, but the handover has not brought the database here yet
+            return;
+        }
+        String ownerUrl = clusterMembership.nodeUrl(clusterMembership.ownerOf(partition));
+        if (routing == PartitionProperties.Routing.REDIRECT || path.endsWith("/events")) {
+            forwarder.redirect(request, ownerUrl, response); // Event streams are long-lived, never proxied
+        } else {
+            forwarder.forward(request, body != null ? body : request.getInputStream().readAllBytes(), ownerUrl, response);
+        }
+    }
+
+    private String accountNumberOf(byte[] body) {
+        try {
+            JsonNode accountNumber = objectMapper.readTree(body).get("accountNumber");
+            return accountNumber != null && accountNumber.isTextual() ? accountNumber.asText() : null;
+        } catch (IOException e) {
+            return null; // Malformed body, the controller rejects it without touching a database
+        }
+    }
+
+    // Request forwarded by a node: the client is the one the forwarding node saw, not the node itself
+    private static class ForwardedRequest extends HttpServletRequestWrapper {
+
+        private final String clientAddress;
+
+        ForwardedRequest(HttpServletRequest request) {
+            super(request);
+            String forwardedFor = request.getHeader(PartitionForwarder.FORWARDED_FOR_HEADER);
+            this.clientAddress = forwardedFor == null || forwardedFor.isBlank() ? request.getRemoteAddr() : forwardedFor.trim();
+        }
+
+        @Override
+        public String getRemoteAddr() {
+            return clientAddress;
+        }
+
+        @Override
+        public String getRemoteHost() {
+            return clientAddress;
+        }
+    }
+
+    // Lets the controller read a body the filter already consumed
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.midou.ben.bankingapp.exception.ClusterException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Partitions whose database this node hosts. Each node has its own embedded database per partition and only
+ * reads or writes the ones it holds, so exactly one node writes a partition: the holder. Ownership in
+ * {@link ClusterMembership} says where a partition should be; holding follows it through {@link PartitionHandover},
+ * which moves the database itself to the new owner.
+ * <p>
+ * A handover is two-phase. The holder exports the partition when asked by a node it no longer considers the
+ * owner, stops serving it and keeps its copy as the reference; the importer loads the export and confirms, and
+ * only then does the former holder drop its copy. Until confirmed, the export can be handed again to whichever
+ * node asks next, or taken back by the former holder if ownership returns to it, so a partition is never lost
+ * and never held twice.
+ * <p>
+ * Every access goes through a per-partition read lock, taken with a check that the partition is held; a release
+ * takes the write lock, so it waits for the requests and batches in flight and nothing writes to the copy once
+ * exported. Without partitioning the single partition 0 is always held.
+ */
+@Component
+@Slf4j
+public class PartitionStore {
+
+    private final ClusterMembership clusterMembership;
+    private final DataSource dataSource;
+    private final Slot[] slots;
+
+    public PartitionStore(ClusterMembership clusterMembership, DataSource dataSource, MeterRegistry meterRegistry) {
+        this.clusterMembership = clusterMembership;
+        this.dataSource = dataSource;
+        this.slots = new Slot[clusterMembership.allPartitions().size()];
+        for (int partition = 0; partition < slots.length; partition++) {
+            slots[partition] = new Slot();
+        }
+        slots[0].held = !clusterMembership.isEnabled(); // With partitioning, PartitionHandover decides at startup
+        Gauge.builder("bankingapp.partition.held", this, store -> store.heldPartitions().size())
+                .description("Number of partition databases hosted by this node")
+                .register(meterRegistry);
+    }
+
+    public boolean isHeld(int partition) {
+        return slots[partition].held;
+    }
+
+    public List<Integer> heldPartitions() {
+        List<Integer> held = new ArrayList<>();
+        for (int partition = 0; partition < slots.length; partition++) {
+            if (slots[partition].held) {
+                held.add(partition);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Enters a held partition: true with its read lock taken, to be released with {@link #exit(int)};
+     * false, without the lock, when this node does not hold it.
+     */
+    public boolean enter(int partition) {
+        Slot slot = slots[partition];
+        slot.lock.readLock().lock();
+        if (slot.held) {
+            return true;
+        }
+        slot.lock.readLock().unlock();
+        return false;
+    }
+
+    public void exit(int partition) {
+        slots[partition].lock.readLock().unlock();
+    }
+
+    // Runs the action with the partition bound, if held here; empty otherwise
+    public <T> Optional<T> callIfHeld(int partition, Supplier<T> action) {
+        if (!enter(partition)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(PartitionContext.callIn(partition, action));
+        } finally {
+            exit(partition);
+        }
+    }
+
+    public boolean runIfHeld(int partition, Runnable action) {
+        if (!enter(partition)) {
+            return false;
+        }
+        try {
+            PartitionContext.runIn(partition, action);
+            return true;
+        } finally {
+            exit(partition);
+        }
+    }
+
+    /**
+     * Exports a partition for the given node: a held partition this node no longer owns is released first,
+     * an export not yet confirmed is handed again. Answers PARTITION_STILL_OWNED while this node's membership
+     * still names it the owner (the views have not converged yet) and PARTITION_NOT_HOSTED when there is nothing here.
+     */
+    public byte[] export(int partition, String nodeId) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.held && clusterMembership.isLocal(partition)) {
+                throw new ClusterException(ErrorCode.PARTITION_STILL_OWNED, Integer.toString(partition));
+            }
+            if (!slot.held && slot.exportedTo == null) {
+                throw new ClusterException(ErrorCode.PARTITION_NOT_HOSTED, Integer.toString(partition));
+            }
+            byte[] script = script(partition);
+            if (slot.held) {
+                log.info("Partition {} released to {}", partition, nodeId);
+            }
+            slot.held = false;
+            slot.exportedTo = nodeId;
+            slot.confirmedTo = null;
+            return script;
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    // The node the partition was last exported to has loaded it: the copy here is dropped. Repeating it is harmless
+    public void confirmExport(int partition, String nodeId) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.exportedTo == null && nodeId.equals(slot.confirmedTo)) {
+                return; // The first confirmation's response was lost
+            }
+            if (slot.held || !nodeId.equals(slot.exportedTo)) {
+                throw new ClusterException(ErrorCode.PARTITION_EXPORT_SUPERSEDED, Integer.toString(partition));
+            }
+            execute(partition, "drop all objects");
+            slot.exportedTo = null;
+            slot.confirmedTo = nodeId;
+            log.info("Partition {} handed over to {}", partition, nodeId);
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads an export into this node's database of the partition, without holding it yet: the former holder
+     * still has the reference copy until {@link #holdImported(int)} follows its confirmation.
+     */
+    public boolean loadImport(int partition, byte[] script) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.held || slot.exportedTo != null) {
+                return false; // Never overwrite a copy this node is the reference for
+            }
+            execute(partition, "drop all objects");
+            runScript(partition, script);
+            slot.imported = true;
+            return true;
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    // The former holder confirmed the import: serve it from now on
+    public void holdImported(int partition) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.imported) {
+                slot.imported = false;
+                slot.held = true;
+                slot.confirmedTo = null;
+            }
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    // The former holder handed the partition to another node in between: this import is stale
+    public void dropImport(int partition) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.imported) {
+                execute(partition, "drop all objects");
+                slot.imported = false;
+            }
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    // An import waiting for its confirmation, e.g. after the confirmation call failed: confirm again, do not fetch again
+    public boolean hasUnconfirmedImport(int partition) {
+        return slots[partition].imported;
+    }
+
+    // Holds again a partition exported but not yet confirmed, when ownership came back here before the handover ended
+    public boolean reclaim(int partition) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.exportedTo == null) {
+                return slot.held;
+            }
+            log.info("Partition {} taken back, its export to {} was not confirmed", partition, slot.exportedTo);
+            slot.held = true;
+            slot.exportedTo = null;
+            slot.confirmedTo = null;
+            return true;
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    // At startup, for a partition no other node holds: serves whatever this node's database has (empty, or a file kept from a previous run)
+    public void hold(int partition) {
+        Slot slot = slots[partition];
+        slot.lock.writeLock().lock();
+        try {
+            if (slot.exportedTo == null && !slot.imported) {
+                slot.held = true;
+            }
+        } finally {
+            slot.lock.writeLock().unlock();
+        }
+    }
+
+    public boolean hasPendingExport(int partition) {
+        return slots[partition].exportedTo != null;
+    }
+
+    private byte[] script(int partition) {
+        Path file = tempFile();
+        try {
+            execute(partition, "script nopasswords nosettings to " + literal(file));
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the export of partition " + partition, e);
+        } finally {
+            delete(file);
+        }
+    }
+
+    private void runScript(int partition, byte[] script) {
+        Path file = tempFile();
+        try {
+            Files.write(file, script);
+            execute(partition, "runscript from " + literal(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the export of partition " + partition, e);
+        } finally {
+            delete(file);
+        }
+    }
+
+    // Straight on the partition's pool: handovers run with the partition not held
+    private void execute(int partition, String sql) {
+        Integer previous = PartitionContext.bind(partition);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Partition " + partition + " handover failed: " + e.getMessage(), e);
+        } finally {
+            PartitionContext.restore(previous);
+        }
+    }
+
+    private static String literal(Path file) {
+        return "'" + file.toAbsolutePath().toString().replace("'", "''") + "'";
+    }
+
+    private static Path tempFile() {
+        try {
+            return Files.createTempFile("partition-", ".sql");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", file, e.toString());
+        }
+    }
+
+    // Fair lock: a release waiting for in-flight requests is not starved by new ones
+    private static class Slot {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+        private volatile boolean held;
+        // Changed under the write lock only
+        private volatile String exportedTo; // Node an export awaits the confirmation of
+        private volatile String confirmedTo; // Node the last export was confirmed by
+        private volatile boolean imported; // Export loaded here, not yet confirmed by the former holder
+    }
+}
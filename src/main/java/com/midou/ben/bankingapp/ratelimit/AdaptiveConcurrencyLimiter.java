@@ -0,0 +1,79 @@
+package com.midou.ben.bankingapp.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of requests in flight and adapts the cap to observed latency (AIMD):
+ * the limit grows by one after a full window of fast responses and is cut multiplicatively,
+ * at most once per latency target, as soon as responses exceed the target. Once the limit is
+ * reached new requests are rejected instead of queueing on Tomcat threads and database connections.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger fastResponses = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max.");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Releases a slot taken by tryAcquire and feeds the observed latency back into the limit
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (latencyNanos > targetLatencyNanos) {
+            decrease(System.nanoTime());
+        } else if (fastResponses.incrementAndGet() >= limit.get()) {
+            fastResponses.set(0);
+            limit.accumulateAndGet(maxLimit, (current, max) -> Math.min(max, current + 1));
+        }
+    }
+
+    // Releases a slot without a latency sample (e.g. long-lived async requests)
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private void decrease(long nowNanos) {
+        long last = lastDecrease.get();
+        if (nowNanos - last < targetLatencyNanos || !lastDecrease.compareAndSet(last, nowNanos)) {
+            return; // Someone already backed off for this burst of slow responses
+        }
+        fastResponses.set(0);
+        limit.accumulateAndGet(minLimit, (current, min) -> Math.max(min, (int) (current * BACKOFF_RATIO)));
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,209 @@
+package com.midou.ben.bankingapp.ratelimit;
+
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import com.midou.ben.bankingapp.json.AccountJsonWriter;
+import com.midou.ben.bankingapp.partition.ClusterCredentials;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the REST controllers:
+ * <ol>
+ *     <li>a token bucket per client (API key or remote address) and per handler method, rejected with 429;</li>
+ *     <li>a global adaptive concurrency limit, shedding load with 503 once latency exceeds its target.</li>
+ * </ol>
+ * Both reject with a {@code Retry-After} header. The admitted path takes no lock and allocates nothing
+ * once the client's bucket exists. Calls from cluster nodes were admitted on the node the client called,
+ * so the owner a request is forwarded to does not charge it a second time.
+ */
+@Component
+@Slf4j
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final long NOT_ADMITTED = Long.MIN_VALUE;
+
+    private final RateLimitProperties properties;
+    private final ClusterCredentials credentials;
+    private final byte[] rateLimitedBody;  // Problem bodies are fixed, rendered once
+    private final byte[] overloadedBody;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter; // Null when concurrency limiting is disabled
+    private final Map<Method, EndpointBuckets> buckets = new ConcurrentHashMap<>(); // handler method -> client buckets
+    // Admission time of the request holding a concurrency slot on this thread. Synchronous requests complete
+    // on the thread that admitted them and async ones release their slot in afterConcurrentHandlingStarted,
+    // so no request attribute (and no boxed long) is needed
+    private final ThreadLocal<long[]> admittedAt = ThreadLocal.withInitial(() -> new long[]{NOT_ADMITTED});
+
+    private final Counter rateLimitedCounter;
+    private final Counter shedCounter;
+
+    public RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry, AccountJsonWriter jsonWriter,
+                                ClusterCredentials credentials) {
+        this.properties = properties;
+        this.credentials = credentials;
+        this.rateLimitedBody = jsonWriter.fixedError(ErrorCode.RATE_LIMITED);
+        this.overloadedBody = jsonWriter.fixedError(ErrorCode.SERVICE_OVERLOADED);
+        RateLimitProperties.Concurrency concurrency = properties.getConcurrency();
+        this.concurrencyLimiter = concurrency.isEnabled()
+                ? new AdaptiveConcurrencyLimiter(concurrency.getInitialLimit(), concurrency.getMinLimit(),
+                        concurrency.getMaxLimit(), TimeUnit.MILLISECONDS.toNanos(concurrency.getTargetLatencyMs()))
+                : null;
+        this.rateLimitedCounter = meterRegistry.counter("bankingapp.ratelimit.rejected");
+        this.shedCounter = meterRegistry.counter("bankingapp.ratelimit.shed");
+        if (concurrencyLimiter != null) {
+            Gauge.builder("bankingapp.ratelimit.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .register(meterRegistry);
+            Gauge.builder("bankingapp.ratelimit.concurrency.inflight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true; // Async re-dispatches were admitted by the original request
+        }
+        if (credentials.isValid(request.getHeader(ClusterCredentials.HEADER))) {
+            return true; // Forwarded by the entry node, which already admitted it
+        }
+        long now = System.nanoTime();
+        long waitNanos = bucketFor(handlerMethod.getMethod(), clientKey(request), now).tryAcquire(now);
+        if (waitNanos > 0) {
+            rateLimitedCounter.increment();
+            reject(response, ErrorCode.RATE_LIMITED, waitNanos, rateLimitedBody);
+            return false;
+        }
+        if (concurrencyLimiter != null) {
+            if (!concurrencyLimiter.tryAcquire()) {
+                shedCounter.increment();
+                reject(response, ErrorCode.SERVICE_OVERLOADED, TimeUnit.SECONDS.toNanos(1), overloadedBody);
+                return false;
+            }
+            admittedAt.get()[0] = now;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        long[] admitted = admittedAt.get();
+        if (admitted[0] != NOT_ADMITTED) {
+            long start = admitted[0];
+            admitted[0] = NOT_ADMITTED;
+            concurrencyLimiter.release(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Long-lived streams must not hold a slot nor count as slow responses
+        long[] admitted = admittedAt.get();
+        if (admitted[0] != NOT_ADMITTED) {
+            admitted[0] = NOT_ADMITTED;
+            concurrencyLimiter.release();
+        }
+    }
+
+    // Buckets that refilled completely are equivalent to new ones, so dropping them bounds memory
+    @Scheduled(fixedDelayString = "${app.ratelimit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().forEach(endpoint -> endpoint.clients.values().removeIf(bucket -> bucket.isFull(now)));
+    }
+
+    AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private TokenBucket bucketFor(Method method, String client, long now) {
+        EndpointBuckets existing = buckets.get(method);
+        EndpointBuckets endpoint = existing != null ? existing : buckets.computeIfAbsent(method, this::newEndpoint);
+        TokenBucket bucket = endpoint.clients.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (endpoint.clients.size() >= properties.getMaxClientsPerEndpoint()) {
+            endpoint.evict(now); // Caps memory without making new clients share anyone's budget
+        }
+        return endpoint.clients.computeIfAbsent(client, key -> endpoint.newBucket());
+    }
+
+    // Overrides are looked up as Controller.method first, then by method name alone
+    private EndpointBuckets newEndpoint(Method method) {
+        Map<String, RateLimitProperties.Limit> overrides = properties.getEndpoints();
+        RateLimitProperties.Limit limit = overrides.get(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        if (limit == null) {
+            limit = overrides.getOrDefault(method.getName(), properties.getDefaults());
+        }
+        return new EndpointBuckets(limit);
+    }
+
+    // Only configured keys identify a client when a key list is set; anything else falls back to the address
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(properties.getApiKeyHeader());
+        if (apiKey == null || apiKey.isEmpty()) {
+            return request.getRemoteAddr();
+        }
+        Set<String> knownKeys = properties.getApiKeys();
+        return knownKeys.isEmpty() || knownKeys.contains(apiKey) ? apiKey : request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, ErrorCode code, long retryAfterNanos, byte[] body) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setStatus(code.getStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static final class EndpointBuckets {
+        private final RateLimitProperties.Limit limit;
+        private final Map<String, TokenBucket> clients = new ConcurrentHashMap<>();
+
+        EndpointBuckets(RateLimitProperties.Limit limit) {
+            this.limit = limit;
+        }
+
+        TokenBucket newBucket() {
+            return new TokenBucket(limit.getRequestsPerSecond(), limit.getBurst());
+        }
+
+        // Drops the buckets that refilled, or else the one closest to refilled: forgetting it costs that client
+        // the least, while a client that used up its budget keeps its bucket whatever the others do
+        void evict(long now) {
+            if (clients.values().removeIf(bucket -> bucket.isFull(now))) {
+                return;
+            }
+            String closest = null;
+            long earliest = Long.MAX_VALUE;
+            for (Map.Entry<String, TokenBucket> entry : clients.entrySet()) {
+                long fullAt = entry.getValue().fullAt();
+                if (fullAt < earliest) {
+                    earliest = fullAt;
+                    closest = entry.getKey();
+                }
+            }
+            if (closest != null) {
+                clients.remove(closest);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.midou.ben.bankingapp.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "app.ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Header identifying the calling client; requests without it are keyed by remote address
+    private String apiKeyHeader = "X-API-Key";
+
+    // Known client keys. When set, requests carrying any other key are keyed by remote address
+    private Set<String> apiKeys = new HashSet<>();
+
+    // Clients tracked per endpoint; once reached, a new client replaces the bucket closest to refilled
+    private int maxClientsPerEndpoint = 10_000;
+
+    // Default token bucket applied to every client and endpoint
+    private Limit defaults = new Limit();
+
+    // Overrides keyed by Controller.method (bracket notation: endpoints[AccountController.deposit]),
+    // or by method name alone for every controller
+    private Map<String, Limit> endpoints = new HashMap<>();
+
+    private Concurrency concurrency = new Concurrency();
+
+    @Data
+    public static class Limit {
+        private double requestsPerSecond = 100;
+        private int burst = 200;
+    }
+
+    @Data
+    public static class Concurrency {
+        private boolean enabled = true;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 100;
+        private long targetLatencyMs = 100;
+    }
+}
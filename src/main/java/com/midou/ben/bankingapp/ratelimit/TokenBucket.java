@@ -0,0 +1,51 @@
+package com.midou.ben.bankingapp.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: the whole state is the
+ * "theoretical arrival time" of the next request, kept in a single {@link AtomicLong}.
+ * A request is admitted if it would not push that time more than {@code burst} intervals into the future.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;   // Time needed to earn one token
+    private final long toleranceNanos;  // How far ahead of the rate a burst may run
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive.");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Takes one token.
+     * @return 0 if the request is admitted, otherwise the number of nanoseconds until a token is available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A bucket that has refilled completely carries no state and can be discarded
+    public boolean isFull(long nowNanos) {
+        return fullAt() <= nowNanos;
+    }
+
+    // When the bucket is full again: the earlier, the less state discarding it loses
+    public long fullAt() {
+        return theoreticalArrival.get();
+    }
+}
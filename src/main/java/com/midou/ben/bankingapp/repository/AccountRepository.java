@@ -2,10 +2,14 @@ package com.midou.ben.bankingapp.repository;
 
 import com.midou.ben.bankingapp.model.Account;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,6 +18,35 @@ public interface AccountRepository extends JpaRepository<Account, Long> { // Ent
     // Custom query method to find an account by its account number
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    // Same lookup, locking the row until the transaction ends so concurrent balance updates cannot be lost
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
+
     // Check if an account number already exists
     boolean existsByAccountNumber(String accountNumber);
+
+    // Owner search page: names in [prefix, prefixEnd) after the (name, account number) cursor, in keyset order,
+    // a range scan on the (normalized_owner_name, account_number) index whatever the page depth
+    @Query("select a from Account a"
+            + " where a.normalizedOwnerName >= :prefix and a.normalizedOwnerName < :prefixEnd"
+            + " and (a.normalizedOwnerName > :afterName or (a.normalizedOwnerName = :afterName and a.accountNumber > :afterNumber))"
+            + " order by a.normalizedOwnerName, a.accountNumber")
+    List<Account> findOwnerPage(@Param("prefix") String prefix, @Param("prefixEnd") String prefixEnd,
+                                @Param("afterName") String afterName, @Param("afterNumber") String afterNumber, Limit limit);
+
+    // Fuzzy search: the accounts of one matched name after an account number, on the same index
+    List<Account> findByNormalizedOwnerNameAndAccountNumberGreaterThanOrderByAccountNumber(String normalizedOwnerName,
+                                                                                           String afterNumber, Limit limit);
+
+    // Distinct owner names, loaded into the in-memory fuzzy index at startup
+    @Query("select distinct a.normalizedOwnerName from Account a")
+    List<String> findDistinctNormalizedOwnerNames();
+
+    // Bounds of the id space, partitioned by batch jobs
+    @Query("select min(a.id) from Account a")
+    Long findMinId();
+
+    @Query("select max(a.id) from Account a")
+    Long findMaxId();
 }
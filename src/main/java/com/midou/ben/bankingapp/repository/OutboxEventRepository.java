@@ -0,0 +1,40 @@
+package com.midou.ben.bankingapp.repository;
+
+import com.midou.ben.bankingapp.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Next batch of events still waiting for the relay, oldest first, row-locked until the transaction ends.
+    // Rows already claimed by another relay are skipped (NOWAIT would raise a timeout that evicts the pooled connection)
+    @Query(value = "select * from outbox_events where published_at is null order by id fetch first :limit rows only for update skip locked",
+            nativeQuery = true)
+    List<OutboxEvent> claimPendingBatch(@Param("limit") int limit);
+
+    // Head of the outbox, locked or not
+    @Query("select min(e.id) from OutboxEvent e where e.publishedAt is null")
+    Long findFirstPendingId();
+
+    // Pending events and the age of the oldest one, in a single scan of the pending index
+    @Query("select count(e) as pending, min(e.occurredAt) as oldestOccurredAt from OutboxEvent e where e.publishedAt is null")
+    OutboxBacklog findBacklog();
+
+    interface OutboxBacklog {
+        long getPending();
+
+        LocalDateTime getOldestOccurredAt();
+    }
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+}
@@ -0,0 +1,17 @@
+package com.midou.ben.bankingapp.repository;
+
+import com.midou.ben.bankingapp.model.PostingRunChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PostingRunChunkRepository extends JpaRepository<PostingRunChunk, Long> {
+
+    // Ranges already posted by a run, skipped when the run is restarted
+    @Query("select c.chunkStart from PostingRunChunk c where c.runId = :runId")
+    List<Long> findCompletedChunkStarts(@Param("runId") String runId);
+}
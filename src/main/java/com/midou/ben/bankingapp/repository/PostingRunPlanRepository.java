@@ -0,0 +1,13 @@
+package com.midou.ben.bankingapp.repository;
+
+import com.midou.ben.bankingapp.model.PostingRunPlan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PostingRunPlanRepository extends JpaRepository<PostingRunPlan, Long> {
+
+    Optional<PostingRunPlan> findByRunId(String runId);
+}
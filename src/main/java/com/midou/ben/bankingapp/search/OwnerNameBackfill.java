@@ -0,0 +1,82 @@
+package com.midou.ben.bankingapp.search;
+
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.utils.OwnerNameNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills normalized_owner_name on accounts written before the column existed, then makes it NOT NULL;
+ * a column already NOT NULL is left alone.
+ * The column is added nullable (by Hibernate's schema update or db/upgrade-owner-search.sql) since a populated table
+ * cannot take a NOT NULL column without a default; the names are normalized here because the accent
+ * folding of {@link OwnerNameNormalizer} has no SQL equivalent.
+ */
+@Component
+@Slf4j
+public class OwnerNameBackfill {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String SELECT_MISSING =
+            "select id, owner_name from accounts where normalized_owner_name is null fetch first " + BATCH_SIZE + " rows only";
+    private static final String UPDATE_NORMALIZED =
+            "update accounts set normalized_owner_name = ? where id = ?";
+    private static final String ADD_CONSTRAINT =
+            "alter table accounts alter column normalized_owner_name set not null";
+    private static final String COLUMN_NULLABLE =
+            "select is_nullable from information_schema.columns"
+                    + " where lower(table_name) = 'accounts' and lower(column_name) = 'normalized_owner_name'";
+
+    private final PartitionStore partitionStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public OwnerNameBackfill(PartitionStore partitionStore,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager) {
+        this.partitionStore = partitionStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Backfills the partitions this node hosts; returns the number of accounts updated
+    public int run() {
+        int updated = 0;
+        for (int partition : partitionStore.heldPartitions()) {
+            updated += partitionStore.callIfHeld(partition, this::backfillPartition).orElse(0);
+        }
+        if (updated > 0) {
+            log.info("Backfilled the normalized owner name of {} accounts", updated);
+        }
+        return updated;
+    }
+
+    private int backfillPartition() {
+        // Once NOT NULL there is nothing left to fill: no scan and no ALTER, which locks or rewrites the table
+        // on most databases
+        if (!jdbcTemplate.queryForList(COLUMN_NULLABLE, String.class).contains("YES")) {
+            return 0;
+        }
+        int updated = 0;
+        int batch;
+        do {
+            // One short transaction per batch, so online writes are not blocked behind the whole table
+            batch = transactionTemplate.execute(status -> {
+                List<Object[]> rows = jdbcTemplate.query(SELECT_MISSING, (rs, rowNum) -> new Object[]{
+                        OwnerNameNormalizer.normalize(rs.getString("owner_name")), rs.getLong("id")});
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_NORMALIZED, rows);
+                }
+                return rows.size();
+            });
+            updated += batch;
+        } while (batch == BATCH_SIZE);
+        jdbcTemplate.execute(ADD_CONSTRAINT);
+        return updated;
+    }
+}
@@ -0,0 +1,295 @@
+package com.midou.ben.bankingapp.search;
+
+import com.midou.ben.bankingapp.dto.HostedOwnerNamesResponse;
+import com.midou.ben.bankingapp.model.AccountCreatedEvent;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionForwarder;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.repository.AccountRepository;
+import com.midou.ben.bankingapp.utils.OwnerNameNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the distinct normalized owner names, for typo-tolerant search.
+ * It holds names, not accounts: many accounts share a name, and the accounts of the matching
+ * names are then fetched through the indexed normalized_owner_name column.
+ * Loaded at startup, after {@link OwnerNameBackfill}, from the partitions hosted here and those the other nodes
+ * report, and kept up to date as accounts are created on this node. With partitioning, accounts are created on the
+ * node hosting their partition, so the index also reads every partition again each index-refresh-interval-ms:
+ * names created elsewhere show up here within that interval. Names are never removed, so a refresh only adds.
+ * Until every partition has been read once the index is incomplete, see {@link #isLoaded()}.
+ */
+@Component
+@Slf4j
+public class OwnerNameIndex {
+
+    private final AccountRepository accountRepository;
+    private final ClusterMembership clusterMembership;
+    private final PartitionStore partitionStore;
+    private final PartitionForwarder partitionForwarder;
+    private final OwnerNameBackfill backfill;
+    private final double minSimilarity;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final IntList gramCounts = new IntList();
+    private final Map<String, IntList> postings = new HashMap<>(); // trigram -> ids of the names containing it
+    private final ThreadLocal<Scores> scratch = ThreadLocal.withInitial(Scores::new);
+    private volatile boolean backfilled; // Refreshes wait for the startup load to have backfilled the hosted partitions
+    private volatile boolean loaded;
+
+    public OwnerNameIndex(AccountRepository accountRepository,
+                          ClusterMembership clusterMembership,
+                          PartitionStore partitionStore,
+                          PartitionForwarder partitionForwarder,
+                          OwnerNameBackfill backfill,
+                          @Value("${app.search.min-similarity:0.4}") double minSimilarity) {
+        this.accountRepository = accountRepository;
+        this.clusterMembership = clusterMembership;
+        this.partitionStore = partitionStore;
+        this.partitionForwarder = partitionForwarder;
+        this.backfill = backfill;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Thread.ofVirtual().name("owner-index-load").start(() -> {
+            try {
+                loadNow();
+            } catch (RuntimeException e) {
+                log.error("Owner name index could not be loaded, fuzzy search stays unavailable: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    void loadNow() {
+        long start = System.nanoTime();
+        backfill.run();
+        backfilled = true;
+        int read = readAllPartitions();
+        log.info("Owner name index loaded with {} names from {} of {} partitions in {} ms",
+                size(), read, clusterMembership.allPartitions().size(), (System.nanoTime() - start) / 1_000_000);
+        if (!loaded) {
+            log.warn("Owner name index incomplete, fuzzy search stays unavailable until every partition has been read");
+        }
+    }
+
+    // Picks up the names created on the other nodes, and completes a load that missed unreachable partitions
+    @Scheduled(initialDelayString = "${app.search.index-refresh-interval-ms:30000}",
+            fixedDelayString = "${app.search.index-refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!clusterMembership.isEnabled() || !backfilled) {
+            return; // Without partitioning every account is created here and indexed on commit
+        }
+        int before = size();
+        int read = readAllPartitions();
+        log.debug("Owner name index refreshed from {} partitions, {} new names", read, size() - before);
+    }
+
+    // Adds the names of the hosted partitions and of the peers'; returns the number of distinct partitions read
+    private int readAllPartitions() {
+        Set<Integer> read = new HashSet<>();
+        HostedOwnerNamesResponse hosted = hostedNames();
+        read.addAll(hosted.partitions());
+        hosted.names().forEach(this::add);
+        for (String nodeUrl : clusterMembership.peerUrls()) {
+            partitionForwarder.fetchOwnerNames(nodeUrl).ifPresent(names -> {
+                read.addAll(names.partitions());
+                names.names().forEach(this::add);
+            });
+        }
+        if (read.size() == clusterMembership.allPartitions().size() && !loaded) {
+            loaded = true;
+            log.info("Owner name index complete with {} names", size());
+        }
+        return read.size();
+    }
+
+    // Names of the partitions hosted here, also served to the other nodes
+    public HostedOwnerNamesResponse hostedNames() {
+        List<Integer> read = new ArrayList<>();
+        Set<String> hostedNames = new HashSet<>();
+        for (int partition : partitionStore.heldPartitions()) {
+            partitionStore.callIfHeld(partition, accountRepository::findDistinctNormalizedOwnerNames).ifPresent(found -> {
+                read.add(partition);
+                hostedNames.addAll(found);
+            });
+        }
+        return new HostedOwnerNamesResponse(read, List.copyOf(hostedNames));
+    }
+
+    // False until every partition has been read: fuzzy results would silently miss names
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAccountCreated(AccountCreatedEvent event) {
+        add(OwnerNameNormalizer.normalize(event.account().getOwnerName()));
+    }
+
+    // Adds a normalized name; names already indexed are ignored
+    public void add(String normalizedName) {
+        if (normalizedName == null || normalizedName.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (nameIds.containsKey(normalizedName)) {
+                return;
+            }
+            int id = names.size();
+            names.add(normalizedName);
+            nameIds.put(normalizedName, id);
+            Set<String> grams = trigrams(normalizedName);
+            gramCounts.add(grams.size());
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new IntList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexed names most similar to the query (Dice coefficient over trigrams), best first.
+     * @param normalizedQuery query already passed through {@link OwnerNameNormalizer}
+     */
+    public List<String> findSimilarNames(String normalizedQuery, int limit) {
+        Set<String> queryGrams = trigrams(normalizedQuery);
+        if (queryGrams.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Scores scores = scratch.get().reset(names.size());
+            for (String gram : queryGrams) {
+                IntList ids = postings.get(gram);
+                if (ids == null) {
+                    continue;
+                }
+                for (int i = 0; i < ids.size(); i++) {
+                    scores.increment(ids.get(i));
+                }
+            }
+            PriorityQueue<ScoredName> best = new PriorityQueue<>(); // Min-heap of the current top matches
+            for (int i = 0; i < scores.touched.size(); i++) {
+                int id = scores.touched.get(i);
+                double score = 2.0 * scores.shared[id] / (queryGrams.size() + gramCounts.get(id));
+                if (score < minSimilarity) {
+                    continue;
+                }
+                best.add(new ScoredName(names.get(id), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<String> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(best.poll().name());
+            }
+            return result.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Trigrams of the name padded with boundaries, so short names and word starts weigh in: "bob" -> " bo", "bob", "ob "
+    static Set<String> trigrams(String normalizedName) {
+        if (normalizedName == null || normalizedName.isEmpty()) {
+            return Set.of();
+        }
+        String padded = " " + normalizedName + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private record ScoredName(String name, double score) implements Comparable<ScoredName> {
+        @Override
+        public int compareTo(ScoredName other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : other.name.compareTo(name);
+        }
+    }
+
+    // Shared trigram counts indexed by name id, reused by the queries of one thread; only the touched ids are reset
+    private static class Scores {
+        private int[] shared = new int[0];
+        private final IntList touched = new IntList();
+
+        Scores reset(int nameCount) {
+            for (int i = 0; i < touched.size(); i++) {
+                shared[touched.get(i)] = 0;
+            }
+            touched.clear();
+            if (shared.length < nameCount) {
+                shared = Arrays.copyOf(shared, Math.max(nameCount, shared.length * 2));
+            }
+            return this;
+        }
+
+        void increment(int id) {
+            if (shared[id]++ == 0) {
+                touched.add(id);
+            }
+        }
+    }
+
+    // Growable int array, avoids boxing in the posting lists
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.midou.ben.bankingapp.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in an owner search: the normalized name and account number of the last account returned.
+ * Account numbers are unique across partitions, unlike ids (one identity sequence per partition database),
+ * so (name, account number) orders every account of the cluster the same way on every node.
+ * Sent to clients as an opaque token.
+ */
+public record OwnerSearchCursor(String normalizedOwnerName, String accountNumber) {
+
+    // Before every account: normalized names are never empty
+    public static final OwnerSearchCursor START = new OwnerSearchCursor("", "");
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((normalizedOwnerName + '\n' + accountNumber).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Null when the token was not produced by encode()
+    public static OwnerSearchCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('\n');
+            return separator <= 0 ? null : new OwnerSearchCursor(decoded.substring(0, separator), decoded.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.midou.ben.bankingapp.search;
+
+/**
+ * One keyset query of an owner search, run on every partition: the accounts whose normalized name starts with
+ * {@code normalizedName} (prefix) or equals it (one name of a fuzzy ranking), after the cursor, at most {@code limit}.
+ * Either way the results are ordered by name then account number.
+ */
+public record OwnerSearchQuery(String normalizedName, boolean prefix, OwnerSearchCursor after, int limit) {
+}
@@ -0,0 +1,11 @@
+package com.midou.ben.bankingapp.search;
+
+import com.midou.ben.bankingapp.model.Account;
+
+import java.util.List;
+
+// Accounts found on one node and the partitions they were searched in, so the caller can tell a partition was missed
+public record PartitionMatches(List<Integer> partitions, List<Account> accounts) {
+
+    public static final PartitionMatches NONE = new PartitionMatches(List.of(), List.of());
+}
@@ -1,6 +1,10 @@
 package com.midou.ben.bankingapp.service;
 
 import com.midou.ben.bankingapp.model.Account;
+import com.midou.ben.bankingapp.search.OwnerSearchCursor;
+import com.midou.ben.bankingapp.search.OwnerSearchQuery;
+import com.midou.ben.bankingapp.search.PartitionMatches;
+import org.springframework.data.domain.Slice;
 import java.math.BigDecimal;
 import java.util.Optional;
 
@@ -13,4 +17,10 @@ public interface AccountService {
     Account deposit(String accountNumber, BigDecimal amount);
 
     Account withdraw(String accountNumber, BigDecimal amount);
+
+    // Accounts after the cursor (null for the first page), ordered by name then account number, or by fuzzy rank
+    Slice<Account> searchByOwner(String ownerQuery, boolean fuzzy, OwnerSearchCursor after, int size);
+
+    // One query of an owner search over the partitions hosted on this node, for the node fanning the search out
+    PartitionMatches searchHostedPartitions(OwnerSearchQuery query);
 }
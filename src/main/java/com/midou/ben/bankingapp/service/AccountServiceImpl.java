@@ -1,19 +1,47 @@
 package com.midou.ben.bankingapp.service;
 
 import com.midou.ben.bankingapp.exception.AccountNotFoundException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
 import com.midou.ben.bankingapp.exception.InsufficientFundsException;
 import com.midou.ben.bankingapp.exception.AccountOperationException;
 import com.midou.ben.bankingapp.model.Account;
+import com.midou.ben.bankingapp.model.AccountCreatedEvent;
+import com.midou.ben.bankingapp.model.AccountUpdatedEvent;
+import com.midou.ben.bankingapp.model.OutboxEvent;
+import com.midou.ben.bankingapp.model.OutboxEventType;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionForwarder;
+import com.midou.ben.bankingapp.partition.PartitionStore;
 import com.midou.ben.bankingapp.repository.AccountRepository;
+import com.midou.ben.bankingapp.repository.OutboxEventRepository;
+import com.midou.ben.bankingapp.search.OwnerNameIndex;
+import com.midou.ben.bankingapp.search.OwnerSearchCursor;
+import com.midou.ben.bankingapp.search.OwnerSearchQuery;
+import com.midou.ben.bankingapp.search.PartitionMatches;
+import com.midou.ben.bankingapp.utils.OwnerNameNormalizer;
 import lombok.RequiredArgsConstructor; // Lombok for constructor injection
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional; // Import Spring's Transactional
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 @RequiredArgsConstructor
@@ -21,20 +49,36 @@ import java.util.Optional;
 public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository; // Inject repository
+    private final OutboxEventRepository outboxEventRepository; // Balance change events, written in the same transaction
+    private final ApplicationEventPublisher eventPublisher; // In-process notification, delivered after commit
+    private final OwnerNameIndex ownerNameIndex; // Typo-tolerant owner search
+    private final ClusterMembership clusterMembership; // Nodes a search has to visit
+    private final PartitionStore partitionStore; // Partitions hosted here
+    private final PartitionForwarder partitionForwarder; // Searches the other nodes' partitions
+
+    // Fuzzy search looks up the accounts of at most this many best matching names
+    private static final int MAX_FUZZY_NAMES = 50;
+    private static final Comparator<Account> BY_NAME_AND_NUMBER =
+            Comparator.comparing(Account::getNormalizedOwnerName).thenComparing(Account::getAccountNumber);
+
+    // Owner searches query the partitions concurrently; blocking JDBC calls, so virtual threads
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Override
     @Transactional
     public Account createAccount(String ownerName, String accountNumber, BigDecimal initialBalance) {
         log.info("Attempting to create account for owner: {}, number: {}", ownerName, accountNumber);
         if (accountRepository.existsByAccountNumber(accountNumber)) {
-            throw new AccountOperationException("Account number '" + accountNumber + "' already exists.");
+            throw new AccountOperationException(ErrorCode.DUPLICATE_ACCOUNT_NUMBER, accountNumber);
         }
         if (initialBalance != null && initialBalance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new AccountOperationException("Initial balance cannot be negative.");
+            throw new AccountOperationException(ErrorCode.NEGATIVE_INITIAL_BALANCE);
         }
 
         Account account = new Account(accountNumber, ownerName, initialBalance);
         Account savedAccount = accountRepository.save(account);
+        outboxEventRepository.save(new OutboxEvent(savedAccount, OutboxEventType.ACCOUNT_CREATED, savedAccount.getBalance()));
+        eventPublisher.publishEvent(new AccountCreatedEvent(savedAccount));
         log.info("Account created successfully with ID: {} and Number: {}", savedAccount.getId(), savedAccount.getAccountNumber());
         return savedAccount;
     }
@@ -53,20 +97,20 @@ public class AccountServiceImpl implements AccountService {
     public Account deposit(String accountNumber, BigDecimal amount) {
         log.info("Attempting to deposit {} into account {}", amount, accountNumber);
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new AccountOperationException("Deposit amount must be positive.");
+            throw new AccountOperationException(ErrorCode.INVALID_DEPOSIT_AMOUNT);
         }
 
-        // Find the account - use orElseThrow for cleaner exception handling
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException("Account not found with number: " + accountNumber));
-        // Synchronize on the specific account object instance
-        synchronized (account) {
-            // Perform deposit
-            account.setBalance(account.getBalance().add(amount));
-            Account updatedAccount = accountRepository.save(account); // Save updates
-            log.info("Deposit successful for account {}. New balance: {}", accountNumber, updatedAccount.getBalance());
-            return updatedAccount;
-        }
+        // Find and lock the account row: concurrent requests and batch postings on it wait for this transaction
+        Account account = accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+
+        // Perform deposit
+        account.setBalance(account.getBalance().add(amount));
+        Account updatedAccount = accountRepository.save(account); // Save updates
+        outboxEventRepository.save(new OutboxEvent(updatedAccount, OutboxEventType.DEPOSIT, amount));
+        eventPublisher.publishEvent(new AccountUpdatedEvent(updatedAccount));
+        log.info("Deposit successful for account {}. New balance: {}", accountNumber, updatedAccount.getBalance());
+        return updatedAccount;
     }
 
     @Override
@@ -76,27 +120,137 @@ public class AccountServiceImpl implements AccountService {
     public Account withdraw(String accountNumber, BigDecimal amount) {
         log.info("Attempting to withdraw {} from account {}", amount, accountNumber);
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new AccountOperationException("Withdrawal amount must be positive.");
+            throw new AccountOperationException(ErrorCode.INVALID_WITHDRAWAL_AMOUNT);
         }
 
-        // Find the account
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException("Account not found with number: " + accountNumber));
+        // Find and lock the account row
+        Account account = accountRepository.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
 
         // Check for sufficient funds
         if (account.getBalance().compareTo(amount) < 0) {
-            log.warn("Insufficient funds for withdrawal attempt on account {}. Required: {}, Available: {}",
+            // Expected business outcome, counted by GlobalExceptionHandler
+            log.debug("Insufficient funds for withdrawal attempt on account {}. Required: {}, Available: {}",
                     accountNumber, amount, account.getBalance());
-            throw new InsufficientFundsException("Insufficient funds in account " + accountNumber);
+            throw new InsufficientFundsException(accountNumber);
+        }
+
+        // Perform withdrawal
+        account.setBalance(account.getBalance().subtract(amount));
+        Account updatedAccount = accountRepository.save(account); // Save updates
+        outboxEventRepository.save(new OutboxEvent(updatedAccount, OutboxEventType.WITHDRAWAL, amount));
+        eventPublisher.publishEvent(new AccountUpdatedEvent(updatedAccount));
+        log.info("Withdrawal successful for account {}. New balance: {}", accountNumber, updatedAccount.getBalance());
+        return updatedAccount;
+    }
+
+    @Override
+    // Not transactional: with partitioning every partition is queried in its own read-only repository transaction
+    public Slice<Account> searchByOwner(String ownerQuery, boolean fuzzy, OwnerSearchCursor after, int size) {
+        log.debug("Searching accounts by owner: {} (fuzzy: {})", ownerQuery, fuzzy);
+        String normalizedQuery = OwnerNameNormalizer.normalize(ownerQuery);
+        if (normalizedQuery == null || normalizedQuery.isEmpty()) {
+            throw new AccountOperationException(ErrorCode.INVALID_SEARCH_QUERY);
+        }
+        OwnerSearchCursor from = after != null ? after : OwnerSearchCursor.START;
+        if (!fuzzy) {
+            return slice(acrossPartitions(new OwnerSearchQuery(normalizedQuery, true, from, size + 1)), size);
+        }
+        if (!ownerNameIndex.isLoaded()) {
+            throw new AccountOperationException(ErrorCode.SEARCH_INDEX_LOADING);
+        }
+        List<String> names = ownerNameIndex.findSimilarNames(normalizedQuery, MAX_FUZZY_NAMES);
+        return byNameRank(names, from, size);
+    }
+
+    // Fuzzy results keep the rank of their name: the accounts of the best name first, then the next one,
+    // fetching only as many accounts per name as the page still needs. The cursor's name gives the position in
+    // the ranking; if it dropped out of the ranking since the previous page, the search ends there
+    private Slice<Account> byNameRank(List<String> rankedNames, OwnerSearchCursor from, int size) {
+        int first = from == OwnerSearchCursor.START ? 0 : rankedNames.indexOf(from.normalizedOwnerName());
+        if (first < 0) {
+            return new SliceImpl<>(List.of());
         }
+        List<Account> ranked = new ArrayList<>();
+        for (int rank = first; rank < rankedNames.size() && ranked.size() <= size; rank++) {
+            String name = rankedNames.get(rank);
+            OwnerSearchCursor after = rank == first ? from : new OwnerSearchCursor(name, "");
+            ranked.addAll(acrossPartitions(new OwnerSearchQuery(name, false, after, size + 1 - ranked.size())));
+        }
+        return slice(ranked, size);
+    }
+
+    // The first `limit` matches over all partitions, in (name, account number) order: this node's partitions and
+    // every other node's, queried in parallel. Each partition returns its own first `limit` (keyset queries, so the
+    // cost does not grow with the page depth). A partition no node answered for fails the search rather than
+    // silently dropping its accounts
+    private List<Account> acrossPartitions(OwnerSearchQuery query) {
+        List<Future<PartitionMatches>> perNode = new ArrayList<>();
+        perNode.add(searchExecutor.submit(() -> searchHostedPartitions(query)));
+        if (clusterMembership.isEnabled()) {
+            for (String nodeUrl : clusterMembership.peerUrls()) {
+                perNode.add(searchExecutor.submit(() -> partitionForwarder.searchAccounts(nodeUrl, query).orElse(PartitionMatches.NONE)));
+            }
+        }
+        Set<Integer> searched = new HashSet<>();
+        List<Account> merged = new ArrayList<>();
+        for (Future<PartitionMatches> result : perNode) {
+            PartitionMatches matches = join(result);
+            searched.addAll(matches.partitions());
+            merged.addAll(matches.accounts());
+        }
+        if (searched.size() < clusterMembership.allPartitions().size()) {
+            throw new AccountOperationException(ErrorCode.SEARCH_PARTITION_UNAVAILABLE);
+        }
+        merged.sort(BY_NAME_AND_NUMBER);
+        return merged.size() > query.limit() ? merged.subList(0, query.limit()) : merged;
+    }
+
+    @Override
+    public PartitionMatches searchHostedPartitions(OwnerSearchQuery query) {
+        List<Integer> held = partitionStore.heldPartitions();
+        List<Future<Optional<List<Account>>>> perPartition = new ArrayList<>(held.size());
+        for (int partition : held) {
+            perPartition.add(searchExecutor.submit(() -> partitionStore.callIfHeld(partition, () -> find(query))));
+        }
+        List<Integer> searched = new ArrayList<>(held.size());
+        List<Account> matches = new ArrayList<>();
+        for (int i = 0; i < held.size(); i++) {
+            Optional<List<Account>> found = join(perPartition.get(i));
+            if (found.isPresent()) { // Empty when the partition was handed over in between
+                searched.add(held.get(i));
+                matches.addAll(found.get());
+            }
+        }
+        return new PartitionMatches(searched, matches);
+    }
+
+    private List<Account> find(OwnerSearchQuery query) {
+        OwnerSearchCursor after = query.after();
+        if (query.prefix()) {
+            String prefixEnd = query.normalizedName() + Character.MAX_VALUE; // Every name starting with the prefix sorts below
+            return accountRepository.findOwnerPage(query.normalizedName(), prefixEnd,
+                    after.normalizedOwnerName(), after.accountNumber(), Limit.of(query.limit()));
+        }
+        return accountRepository.findByNormalizedOwnerNameAndAccountNumberGreaterThanOrderByAccountNumber(
+                query.normalizedName(), after.accountNumber(), Limit.of(query.limit()));
+    }
+
+    // size + 1 rows were fetched to tell whether another page follows
+    private static Slice<Account> slice(List<Account> matches, int size) {
+        return matches.size() > size
+                ? new SliceImpl<>(matches.subList(0, size), PageRequest.ofSize(size), true)
+                : new SliceImpl<>(matches, PageRequest.ofSize(size), false);
+    }
 
-        // Synchronize on the specific account object instance
-        synchronized (account) {
-            // Perform withdrawal
-            account.setBalance(account.getBalance().subtract(amount));
-            Account updatedAccount = accountRepository.save(account); // Save updates
-            log.info("Withdrawal successful for account {}. New balance: {}", accountNumber, updatedAccount.getBalance());
-            return updatedAccount;
+    private static <T> T join(Future<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching partitions", e);
         }
     }
-}
\ No newline at end of file
+}
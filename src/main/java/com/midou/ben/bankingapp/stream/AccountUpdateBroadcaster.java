@@ -0,0 +1,189 @@
+package com.midou.ben.bankingapp.stream;
+
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import com.midou.ben.bankingapp.model.AccountUpdatedEvent;
+import com.midou.ben.bankingapp.utils.AccountMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fans committed account updates out to the SSE subscribers of each account.
+ * Publishing only enqueues into the per-subscriber buffers; frames are written by short-lived
+ * virtual-thread sender tasks, so a slow client never delays the committing request.
+ */
+@Component
+@Slf4j
+public class AccountUpdateBroadcaster implements DisposableBean {
+
+    private final Map<String, Set<AccountUpdateSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-send-", 0).factory());
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-heartbeat").daemon().factory());
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Counter droppedCounter;
+    private final boolean withIds; // No database ids with partitioning, they repeat across partitions
+
+    public AccountUpdateBroadcaster(MeterRegistry meterRegistry,
+                                    @Value("${app.stream.buffer-size:16}") int bufferSize,
+                                    @Value("${app.stream.timeout-ms:1800000}") long timeoutMillis,
+                                    @Value("${app.stream.heartbeat-interval-ms:15000}") long heartbeatMillis,
+                                    @Value("${app.partition.enabled:false}") boolean partitioned) {
+        this.bufferSize = bufferSize;
+        this.withIds = !partitioned;
+        this.timeoutMillis = timeoutMillis;
+        this.droppedCounter = meterRegistry.counter("bankingapp.stream.dropped");
+        Gauge.builder("bankingapp.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open account update streams")
+                .register(meterRegistry);
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Opens a stream for the account, starting with its current state; empty if the account does not exist.
+    // The subscriber is registered before the snapshot is read, so an update committing in between is not lost;
+    // if it is queued ahead of the older snapshot, the snapshot is dropped at send time
+    public Optional<SseEmitter> subscribe(String accountNumber, Supplier<Optional<AccountResponse>> snapshot) {
+        return subscribe(accountNumber, snapshot, new SseEmitter(timeoutMillis));
+    }
+
+    Optional<SseEmitter> subscribe(String accountNumber, Supplier<Optional<AccountResponse>> snapshot, SseEmitter emitter) {
+        AccountUpdateSubscription subscription = register(accountNumber, emitter);
+        Optional<AccountResponse> current;
+        try {
+            current = snapshot.get();
+        } catch (RuntimeException e) {
+            unregister(subscription);
+            throw e;
+        }
+        if (current.isEmpty()) {
+            unregister(subscription);
+            return Optional.empty();
+        }
+        enqueue(subscription, current.get());
+        return Optional.of(emitter);
+    }
+
+    AccountUpdateSubscription register(String accountNumber, SseEmitter emitter) {
+        AccountUpdateSubscription subscription = new AccountUpdateSubscription(accountNumber, emitter, bufferSize);
+        subscriptions.computeIfAbsent(accountNumber, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(() -> {
+            unregister(subscription);
+            emitter.complete();
+        });
+        emitter.onError(error -> unregister(subscription));
+        log.debug("SSE subscriber added for account {}", accountNumber);
+        return subscription;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAccountUpdated(AccountUpdatedEvent event) {
+        publish(AccountMapper.mapToAccountResponse(event.account(), withIds));
+    }
+
+    public void publish(AccountResponse response) {
+        Set<AccountUpdateSubscription> accountSubscriptions = subscriptions.get(response.accountNumber());
+        if (accountSubscriptions == null) {
+            return;
+        }
+        for (AccountUpdateSubscription subscription : accountSubscriptions) {
+            enqueue(subscription, response);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void sendHeartbeats() {
+        for (Set<AccountUpdateSubscription> accountSubscriptions : subscriptions.values()) {
+            for (AccountUpdateSubscription subscription : accountSubscriptions) {
+                enqueue(subscription, AccountUpdateSubscription.HEARTBEAT);
+            }
+        }
+    }
+
+    private void enqueue(AccountUpdateSubscription subscription, Object item) {
+        if (subscription.isClosed()) {
+            return;
+        }
+        if (subscription.offer(item)) {
+            droppedCounter.increment();
+        }
+        if (subscription.tryStartSending()) {
+            senders.execute(() -> drain(subscription));
+        }
+    }
+
+    private void drain(AccountUpdateSubscription subscription) {
+        while (true) {
+            Object item = subscription.poll();
+            if (item == null) {
+                subscription.stopSending();
+                // An item may have been queued between the empty poll and releasing the flag
+                if (subscription.hasPending() && subscription.tryStartSending()) {
+                    continue;
+                }
+                return;
+            }
+            if (!subscription.isNewerThanLastSent(item)) {
+                droppedCounter.increment();
+                continue;
+            }
+            try {
+                subscription.getEmitter().send(AccountUpdateSubscription.toEvent(item));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE subscriber for account {} disconnected: {}", subscription.getAccountNumber(), e.getMessage());
+                unregister(subscription);
+                subscription.stopSending();
+                return;
+            }
+        }
+    }
+
+    private void unregister(AccountUpdateSubscription subscription) {
+        if (!subscription.close()) {
+            return;
+        }
+        subscriptions.computeIfPresent(subscription.getAccountNumber(), (key, accountSubscriptions) -> {
+            accountSubscriptions.remove(subscription);
+            return accountSubscriptions.isEmpty() ? null : accountSubscriptions;
+        });
+        subscriberCount.decrementAndGet();
+        log.debug("SSE subscriber removed for account {}", subscription.getAccountNumber());
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscriptions.values().forEach(accountSubscriptions -> accountSubscriptions.forEach(subscription -> {
+            subscription.close();
+            subscription.getEmitter().complete();
+        }));
+        subscriptions.clear();
+        senders.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package com.midou.ben.bankingapp.stream;
+
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE client of an account. Pending updates sit in a small bounded buffer; when the client is slower
+ * than the update rate the oldest pending update is dropped, since only the latest balance matters.
+ * No thread is held per subscription: a sender task only runs while the buffer is non-empty.
+ */
+class AccountUpdateSubscription {
+
+    // Marker queued by the heartbeat scheduler, rendered as an SSE comment
+    static final Object HEARTBEAT = new Object();
+
+    @Getter
+    private final String accountNumber;
+    @Getter
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final ArrayDeque<Object> buffer;
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // Version of the last state written to the client; only touched by the single sender task
+    private LocalDateTime lastSentUpdatedAt;
+
+    AccountUpdateSubscription(String accountNumber, SseEmitter emitter, int capacity) {
+        this.accountNumber = accountNumber;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.buffer = new ArrayDeque<>(capacity);
+    }
+
+    // Queues an update or heartbeat; returns true if an older pending item had to be dropped
+    synchronized boolean offer(Object item) {
+        if (item == HEARTBEAT && !buffer.isEmpty()) {
+            return false; // Pending data already keeps the connection alive
+        }
+        boolean dropped = false;
+        if (buffer.size() == capacity) {
+            buffer.pollFirst();
+            dropped = true;
+        }
+        buffer.addLast(item);
+        return dropped;
+    }
+
+    synchronized Object poll() {
+        return buffer.pollFirst();
+    }
+
+    synchronized boolean hasPending() {
+        return !buffer.isEmpty();
+    }
+
+    // False for a state older than the one the client already has (a snapshot overtaken by an update).
+    // Balance changes hold the account row lock until they commit, so updatedAt only grows per account
+    boolean isNewerThanLastSent(Object item) {
+        if (item == HEARTBEAT) {
+            return true;
+        }
+        LocalDateTime updatedAt = ((AccountResponse) item).updatedAt();
+        if (lastSentUpdatedAt != null && updatedAt.isBefore(lastSentUpdatedAt)) {
+            return false;
+        }
+        lastSentUpdatedAt = updatedAt;
+        return true;
+    }
+
+    // Claims the right to run the sender task; only one sender per subscription at a time
+    boolean tryStartSending() {
+        return !closed.get() && sending.compareAndSet(false, true);
+    }
+
+    void stopSending() {
+        sending.set(false);
+    }
+
+    // Returns true only for the call that actually closed the subscription
+    boolean close() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (this) {
+            buffer.clear();
+        }
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // Builds the SSE frame for a queued item
+    static SseEmitter.SseEventBuilder toEvent(Object item) {
+        if (item == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        AccountResponse response = (AccountResponse) item;
+        return SseEmitter.event().name("account").data(response);
+    }
+}
@@ -6,9 +6,10 @@ import com.midou.ben.bankingapp.model.Account;
 public  class AccountMapper {
 
     // --- Helper Method for Mapping ---
-    public static AccountResponse mapToAccountResponse(Account account) {
+    // withId is false with partitioning, where database ids are only unique within a partition
+    public static AccountResponse mapToAccountResponse(Account account, boolean withId) {
         return new AccountResponse(
-                account.getId(),
+                withId ? account.getId() : null,
                 account.getAccountNumber(),
                 account.getOwnerName(),
                 account.getBalance(),
@@ -17,4 +18,13 @@ public  class AccountMapper {
         );
     }
 
+    // Account found by another node's owner search: only what search results are merged and rendered from
+    public static Account mapToAccount(AccountResponse response) {
+        Account account = new Account(response.accountNumber(), response.ownerName(), response.balance());
+        account.setNormalizedOwnerName(OwnerNameNormalizer.normalize(response.ownerName()));
+        account.setCreatedAt(response.createdAt());
+        account.setUpdatedAt(response.updatedAt());
+        return account;
+    }
+
 }
@@ -0,0 +1,21 @@
+package com.midou.ben.bankingapp.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class OwnerNameNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Lower case, accents stripped, single spaces: "  Hélène   DUPONT " -> "helene dupont"
+    public static String normalize(String ownerName) {
+        if (ownerName == null) {
+            return null;
+        }
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(ownerName, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(withoutAccents).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+}
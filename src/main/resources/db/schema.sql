@@ -0,0 +1,54 @@
+-- Schema of the banking application, matching the JPA mappings of the model package.
+-- Used when Hibernate schema management is switched off (fast-startup profile); against a real database
+-- apply it as a deployment step instead of at application boot.
+
+create table if not exists accounts (
+    id bigint generated by default as identity,
+    account_number varchar(50) not null,
+    balance numeric(19,4) not null,
+    created_at timestamp(6) not null,
+    normalized_owner_name varchar(100) not null,
+    owner_name varchar(100) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_accounts_account_number unique (account_number)
+);
+
+-- Owner search pages by (name, account number), the keyset order of its cursor
+create index if not exists idx_accounts_owner_search on accounts (normalized_owner_name, account_number);
+
+create table if not exists outbox_events (
+    id bigint generated by default as identity,
+    account_number varchar(50) not null,
+    amount numeric(19,4) not null,
+    balance numeric(19,4) not null,
+    event_type varchar(30) not null,
+    occurred_at timestamp(6) not null,
+    published_at timestamp(6),
+    primary key (id)
+);
+
+create index if not exists idx_outbox_events_pending on outbox_events (published_at, id);
+
+create table if not exists posting_run_chunks (
+    id bigint generated by default as identity,
+    run_id varchar(100) not null,
+    chunk_start bigint not null,
+    chunk_end bigint not null,
+    accounts_posted integer not null,
+    total_amount numeric(19,4) not null,
+    completed_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_posting_run_chunks_run_start unique (run_id, chunk_start)
+);
+
+create table if not exists posting_run_plans (
+    id bigint generated by default as identity,
+    run_id varchar(100) not null,
+    min_id bigint,
+    max_id bigint,
+    chunk_size integer not null,
+    created_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_posting_run_plans_run unique (run_id)
+);
@@ -0,0 +1,4 @@
+-- One-off upgrade of an accounts table created before owner search, applied once before db/schema.sql.
+-- The column is added nullable since a populated table cannot take a NOT NULL column without a default;
+-- OwnerNameBackfill fills it at the next boot and then makes it NOT NULL.
+alter table accounts add column if not exists normalized_owner_name varchar(100);
@@ -0,0 +1,66 @@
+package com.midou.ben.bankingapp.bdd.stepdefinitions;
+
+import com.midou.ben.bankingapp.model.Account;
+import com.midou.ben.bankingapp.search.OwnerNameIndex;
+import com.midou.ben.bankingapp.service.AccountService;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountSearchStepDefinitions {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private OwnerNameIndex ownerNameIndex;
+
+    private List<String> lastResult;
+
+    @Before
+    public void setUp() {
+        lastResult = null;
+    }
+
+    @When("accounts are searched by owner {string}")
+    public void accounts_are_searched_by_owner(String owner) {
+        lastResult = accountNumbers(owner, false);
+    }
+
+    @When("accounts are fuzzy searched by owner {string}")
+    public void accounts_are_fuzzy_searched_by_owner(String owner) throws InterruptedException {
+        // The index loads in the background once the application is ready
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!ownerNameIndex.isLoaded() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        lastResult = accountNumbers(owner, true);
+    }
+
+    @Then("the search should return the accounts {string}")
+    public void the_search_should_return_the_accounts(String accountNumbers) {
+        assertEquals(Arrays.asList(accountNumbers.split(",")), lastResult);
+    }
+
+    @Then("the search results should include the account {string}")
+    public void the_search_results_should_include_the_account(String accountNumber) {
+        assertTrue(lastResult.contains(accountNumber), "Expected " + accountNumber + " in " + lastResult);
+    }
+
+    @Then("the search should return no account")
+    public void the_search_should_return_no_account() {
+        assertTrue(lastResult.isEmpty(), "Expected no account but got " + lastResult);
+    }
+
+    private List<String> accountNumbers(String owner, boolean fuzzy) {
+        return accountService.searchByOwner(owner, fuzzy, null, 20).getContent().stream()
+                .map(Account::getAccountNumber)
+                .toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.midou.ben.bankingapp.bdd.stepdefinitions;
+
+import com.midou.ben.bankingapp.batch.PostingBatchEngine;
+import com.midou.ben.bankingapp.dto.PostingRunProgress;
+import com.midou.ben.bankingapp.dto.PostingRunRequest;
+import com.midou.ben.bankingapp.model.PostingType;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PostingStepDefinitions {
+
+    @Autowired
+    private PostingBatchEngine postingBatchEngine;
+
+    private PostingRunProgress lastProgress;
+    private String scenarioId;
+
+    @Before
+    public void setUp() {
+        lastProgress = null;
+        scenarioId = UUID.randomUUID().toString();
+    }
+
+    // Run ids are made unique per scenario execution so checkpoints of earlier test runs never interfere
+    private String runId(String name) {
+        return name + "-" + scenarioId;
+    }
+
+    @When("an interest run {string} with annual rate {double} is executed")
+    public void an_interest_run_is_executed(String runId, Double annualRate) {
+        lastProgress = postingBatchEngine.run(
+                new PostingRunRequest(runId(runId), PostingType.INTEREST, BigDecimal.valueOf(annualRate), null));
+    }
+
+    @When("a fee run {string} of {double} is executed")
+    public void a_fee_run_is_executed(String runId, Double feeAmount) {
+        lastProgress = postingBatchEngine.run(
+                new PostingRunRequest(runId(runId), PostingType.FEE, null, BigDecimal.valueOf(feeAmount)));
+    }
+
+    @Then("the posting run should be completed with {int} accounts posted")
+    public void the_posting_run_should_be_completed(Integer accountsPosted) {
+        assertNotNull(lastProgress, "No posting run was executed.");
+        assertEquals("COMPLETED", lastProgress.status());
+        assertEquals(accountsPosted.longValue(), lastProgress.accountsPosted());
+        assertEquals(lastProgress.totalChunks(), lastProgress.completedChunks());
+    }
+}
@@ -0,0 +1,53 @@
+package com.midou.ben.bankingapp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import com.midou.ben.bankingapp.json.AccountJsonWriter;
+import com.midou.ben.bankingapp.json.JsonBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering one {@link AccountResponse}: Jackson (as configured by Spring Boot) into a fresh byte array
+ * against {@link AccountJsonWriter} into the pooled per-thread buffer, as the message converter does.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.includes=AccountSerializationBenchmark
+ * (the gc profiler reports gc.alloc.rate.norm, the bytes allocated per response).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final AccountJsonWriter writer = new AccountJsonWriter(1024);
+
+    private AccountResponse account;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime created = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_000);
+        account = new AccountResponse(42L, "ACC0000042", "Hélène Dupont", new BigDecimal("1250.75"),
+                created, created.plusDays(3));
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public int writer() {
+        return writer.write(account, JsonBuffer.acquire()).size(); // The converter copies the buffer straight to the socket
+    }
+}
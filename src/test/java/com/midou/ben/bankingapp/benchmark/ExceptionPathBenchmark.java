@@ -0,0 +1,70 @@
+package com.midou.ben.bankingapp.benchmark;
+
+import com.midou.ben.bankingapp.dto.ErrorResponse;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import com.midou.ben.bankingapp.exception.InsufficientFundsException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting a withdrawal: the previous exception (stack trace captured, message concatenated eagerly)
+ * against the stackless {@link InsufficientFundsException}. Exceptions are thrown from {@code depth} frames
+ * down to approximate the controller/service/proxy stack of a real request, and both variants end by building
+ * the {@link ErrorResponse} the handler renders, so the lazily built message is paid for too.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.includes=ExceptionPathBenchmark
+ * (the gc profiler reports gc.alloc.rate.norm, the bytes allocated per rejection).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionPathBenchmark {
+
+    @Param({"20", "80"})
+    private int depth;
+
+    private String accountNumber = "ACC0001234";
+
+    @Benchmark
+    public ErrorResponse legacyException() {
+        try {
+            throwAt(depth, true);
+            return null;
+        } catch (RuntimeException e) {
+            return new ErrorResponse(ErrorCode.INSUFFICIENT_FUNDS.name(), 400, e.getMessage());
+        }
+    }
+
+    @Benchmark
+    public ErrorResponse stacklessException() {
+        try {
+            throwAt(depth, false);
+            return null;
+        } catch (InsufficientFundsException e) {
+            // Same work as GlobalExceptionHandler: code, status and rendered message
+            ErrorCode code = e.getErrorCode();
+            return new ErrorResponse(code.name(), code.getStatus().value(), e.getMessage());
+        }
+    }
+
+    private void throwAt(int remaining, boolean legacy) {
+        if (remaining > 0) {
+            throwAt(remaining - 1, legacy);
+            return;
+        }
+        if (legacy) {
+            throw new LegacyInsufficientFundsException("Insufficient funds in account " + accountNumber);
+        }
+        throw new InsufficientFundsException(accountNumber);
+    }
+
+    // Shape of the domain exceptions before they became stackless
+    static class LegacyInsufficientFundsException extends RuntimeException {
+        LegacyInsufficientFundsException(String message) {
+            super(message);
+        }
+    }
+}
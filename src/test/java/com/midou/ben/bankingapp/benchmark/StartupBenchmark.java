@@ -0,0 +1,128 @@
+package com.midou.ben.bankingapp.benchmark;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how fast a new instance takes load: wall time from process launch to the first successful
+ * GET /api/v1/accounts/{n}, and the resident set size at that moment, for the plain jar and for the
+ * fast-startup build (AOT + CDS archive + lazy initialization, no Hibernate schema management).
+ * Build both first with: mvn -Pfast-startup package -DskipTests
+ * Run with: java -cp target/test-classes com.midou.ben.bankingapp.benchmark.StartupBenchmark [runs]
+ */
+public class StartupBenchmark {
+
+    private static final String ACCOUNT_NUMBER = "STARTUP001";
+    private static final Duration TIMEOUT = Duration.ofMinutes(3);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    record Mode(String name, List<String> jvmArguments) {
+    }
+
+    record Sample(long millisToFirstGet, long rssKilobytes) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        List<Mode> modes = List.of(
+                new Mode("default", List.of("-jar", "target/bankingapp-0.0.1-SNAPSHOT.jar")),
+                new Mode("fast-startup", List.of(
+                        "-XX:SharedArchiveFile=target/fast-startup/application.jsa",
+                        "-Dspring.aot.enabled=true",
+                        "-Dspring.profiles.active=fast-startup",
+                        "-jar", "target/fast-startup/bankingapp-0.0.1-SNAPSHOT.jar")));
+        StartupBenchmark benchmark = new StartupBenchmark();
+        System.out.printf("%-14s %8s %10s %10s%n", "mode", "runs", "median ms", "RSS MB");
+        for (Mode mode : modes) {
+            List<Sample> samples = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                samples.add(benchmark.measure(mode));
+            }
+            long[] millis = samples.stream().mapToLong(Sample::millisToFirstGet).sorted().toArray();
+            long[] rss = samples.stream().mapToLong(Sample::rssKilobytes).sorted().toArray();
+            System.out.printf("%-14s %8d %10d %10d%n", mode.name(), runs, millis[runs / 2], rss[runs / 2] / 1024);
+        }
+    }
+
+    Sample measure(Mode mode) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(mode.jvmArguments());
+        command.addAll(Arrays.asList("--server.port=" + port, "--logging.level.root=WARN"));
+        URI accounts = URI.create("http://localhost:" + port + "/api/v1/accounts");
+        URI account = URI.create(accounts + "/" + ACCOUNT_NUMBER);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            boolean created = false;
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode.name() + " exited with code " + process.exitValue());
+                }
+                try {
+                    if (!created) {
+                        created = post(accounts) == 201;
+                    }
+                    if (created && get(account) == 200) {
+                        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+                        return new Sample(elapsed, rssKilobytes(process.pid()));
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode.name() + " did not serve a GET within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private int post(URI uri) throws IOException, InterruptedException {
+        String body = "{\"ownerName\":\"Startup Bench\",\"accountNumber\":\"" + ACCOUNT_NUMBER + "\",\"initialBalance\":10}";
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // VmRSS from /proc (Linux only); 0 elsewhere
+    private static long rssKilobytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .map(line -> line.replaceAll("\\D", ""))
+                .mapToLong(Long::parseLong)
+                .findFirst()
+                .orElse(0);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
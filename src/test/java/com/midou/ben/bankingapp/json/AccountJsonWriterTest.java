@@ -0,0 +1,68 @@
+package com.midou.ben.bankingapp.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import com.midou.ben.bankingapp.dto.ErrorResponse;
+import com.midou.ben.bankingapp.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountJsonWriterTest {
+
+    // Same settings Spring Boot applies to its auto-configured ObjectMapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final AccountJsonWriter writer = new AccountJsonWriter(16);
+
+    @Test
+    void write_shouldMatchJacksonForAccounts() throws Exception {
+        LocalDateTime noFraction = LocalDateTime.of(2024, 1, 5, 9, 0, 0);
+        LocalDateTime trailingZeros = LocalDateTime.of(2024, 12, 31, 23, 59, 7, 120_000_000);
+        LocalDateTime fullNanos = LocalDateTime.of(999, 6, 1, 0, 0, 0, 123_456_789);
+
+        assertSameAsJackson(new AccountResponse(1L, "ACC001", "John Doe", new BigDecimal("100.00"), noFraction, trailingZeros));
+        assertSameAsJackson(new AccountResponse(2L, "ACC002", "Hélène Dupont 🏦", new BigDecimal("1E+3"), fullNanos, noFraction));
+        assertSameAsJackson(new AccountResponse(3L, "ACC003", "Quote \" back\\slash\n\ttab\u0001", BigDecimal.ZERO, trailingZeros, null));
+        assertSameAsJackson(new AccountResponse(null, "ACC004", "Partitioned", BigDecimal.ONE, noFraction, noFraction));
+        assertSameAsJackson(new AccountResponse(null, null, null, null, null, null));
+    }
+
+    @Test
+    void write_whenBalanceChanges_shouldReuseCachedFragmentsAndRenderNewBalance() throws Exception {
+        LocalDateTime created = LocalDateTime.of(2024, 3, 1, 10, 15, 30);
+        assertSameAsJackson(new AccountResponse(7L, "ACC007", "Jane", new BigDecimal("10.00"), created, created));
+
+        // Same account after a deposit, then a different account colliding on the same slot
+        assertSameAsJackson(new AccountResponse(7L, "ACC007", "Jane", new BigDecimal("25.50"), created, created.plusSeconds(5)));
+        assertSameAsJackson(new AccountResponse(18L, "ACC018", "Other", new BigDecimal("1.00"), created, created));
+        assertSameAsJackson(new AccountResponse(7L, "ACC007", "Jane Renamed", new BigDecimal("25.50"), created, created));
+    }
+
+    @Test
+    void write_shouldMatchJacksonForErrors() throws Exception {
+        ErrorResponse error = new ErrorResponse("ACCOUNT_NOT_FOUND", 404, "Account not found with number: \"ACC<9>\"");
+
+        assertEquals(objectMapper.writeValueAsString(error), new String(writer.write(error, JsonBuffer.acquire()).toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    void fixedError_shouldRenderCodeStatusAndMessage() throws Exception {
+        ErrorResponse expected = new ErrorResponse("RATE_LIMITED", 429, "Rate limit exceeded.");
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(expected), writer.fixedError(ErrorCode.RATE_LIMITED));
+    }
+
+    private void assertSameAsJackson(AccountResponse account) throws Exception {
+        byte[] expected = objectMapper.writeValueAsBytes(account);
+        byte[] actual = writer.write(account, JsonBuffer.acquire()).toByteArray();
+        assertEquals(new String(expected, "UTF-8"), new String(actual, "UTF-8"));
+        assertArrayEquals(expected, actual);
+    }
+}
@@ -0,0 +1,59 @@
+package com.midou.ben.bankingapp.load;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Client-side record of what the load run did to each account, in cents. Confirmed changes were acknowledged
+ * with a 200; unknown ones (5xx, timeout, broken connection) may or may not have been committed, so they
+ * widen the range the final balance is allowed to fall in instead of being ignored.
+ */
+public class AccountLedger {
+
+    private final List<String> accountNumbers;
+    private final long initialBalanceCents;
+    private final AtomicLongArray confirmed;
+    private final AtomicLongArray unknownDeposits;
+    private final AtomicLongArray unknownWithdrawals;
+
+    public AccountLedger(List<String> accountNumbers, long initialBalanceCents) {
+        this.accountNumbers = List.copyOf(accountNumbers);
+        this.initialBalanceCents = initialBalanceCents;
+        this.confirmed = new AtomicLongArray(accountNumbers.size());
+        this.unknownDeposits = new AtomicLongArray(accountNumbers.size());
+        this.unknownWithdrawals = new AtomicLongArray(accountNumbers.size());
+    }
+
+    public void confirmed(int account, long deltaCents) {
+        confirmed.addAndGet(account, deltaCents);
+    }
+
+    public void unknown(int account, long deltaCents) {
+        if (deltaCents > 0) {
+            unknownDeposits.addAndGet(account, deltaCents);
+        } else {
+            unknownWithdrawals.addAndGet(account, -deltaCents);
+        }
+    }
+
+    public List<String> accountNumbers() {
+        return accountNumbers;
+    }
+
+    public int size() {
+        return accountNumbers.size();
+    }
+
+    public long initialBalanceCents() {
+        return initialBalanceCents;
+    }
+
+    // Lowest and highest balance consistent with every acknowledged operation
+    public long minExpected(int account) {
+        return initialBalanceCents + confirmed.get(account) - unknownWithdrawals.get(account);
+    }
+
+    public long maxExpected(int account) {
+        return initialBalanceCents + confirmed.get(account) + unknownDeposits.get(account);
+    }
+}
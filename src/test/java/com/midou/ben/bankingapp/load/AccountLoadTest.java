@@ -0,0 +1,62 @@
+package com.midou.ben.bankingapp.load;
+
+import com.midou.ben.bankingapp.load.LoadGenerator.Outcome;
+import com.midou.ben.bankingapp.load.LoadProfile.KeyMix;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the real AccountController over HTTP on embedded H2 with concurrent deposits, withdrawals and reads,
+ * then checks that no money was created or lost. Excluded from the default build, run it with mvn -Pload test;
+ * the defaults stay below saturation, for a real load test use e.g.
+ * mvn -Pload test -Dload.rate=2000 -Dload.duration=60 -Dload.accounts=10000
+ * Latency histograms are written to target/load.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        "app.ratelimit.enabled=false", // Measure the service itself, not the limiter's rejections
+        "spring.jpa.show-sql=false",
+        "logging.level.com.midou.ben.bankingapp=WARN", // Per-request INFO lines to the surefire console would dominate
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO"
+})
+class AccountLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void uniformMix_shouldConserveMoney() throws Exception {
+        runAndCheck(KeyMix.UNIFORM, "LOADU");
+    }
+
+    @Test
+    void hotKeyMix_shouldNotLoseUpdatesUnderContention() throws Exception {
+        runAndCheck(KeyMix.HOT_KEY, "LOADH");
+    }
+
+    private void runAndCheck(KeyMix mix, String accountPrefix) throws Exception {
+        // Arrange
+        LoadGenerator generator = new LoadGenerator("http://localhost:" + port, LoadProfile.fromSystemProperties(mix));
+        List<String> accounts = generator.createAccounts(accountPrefix);
+
+        // Act
+        LoadReport report = generator.run(accounts);
+        report.print(System.out);
+        report.writeHistograms(Path.of("target", "load"));
+
+        // Assert
+        List<String> violations = MoneyInvariants.check(report.ledger(), generator.readBalances(accounts));
+        assertEquals(List.of(), violations);
+        assertEquals(0, report.count(Outcome.UNKNOWN), "requests failed with 5xx or no response");
+        assertTrue(report.count(Outcome.OK) > 0);
+    }
+}
@@ -0,0 +1,181 @@
+package com.midou.ben.bankingapp.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator against the account REST API. Arrivals follow a Poisson process at the
+ * profile's rate whatever the response times are, each request runs on its own virtual thread, and
+ * latency is measured from the intended arrival time so a stalled server is not hidden by a stalled
+ * client (coordinated omission). Every outcome is recorded in an {@link AccountLedger}.
+ */
+public class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String accountsUrl;
+    private final LoadProfile profile;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LoadGenerator(String baseUrl, LoadProfile profile) {
+        this.accountsUrl = baseUrl + "/api/v1/accounts";
+        this.profile = profile;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    // Creates the profile's accounts with their initial balance and returns their numbers
+    public List<String> createAccounts(String prefix) throws IOException, InterruptedException {
+        List<String> accountNumbers = new ArrayList<>(profile.accounts());
+        for (int i = 0; i < profile.accounts(); i++) {
+            String accountNumber = prefix + String.format("%06d", i);
+            String body = "{\"accountNumber\":\"" + accountNumber + "\",\"ownerName\":\"Load Test " + i
+                    + "\",\"initialBalance\":" + amount(profile.initialBalanceCents()) + "}";
+            HttpResponse<String> response = client.send(post(accountsUrl, body), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Could not create " + accountNumber + ": " + response.statusCode() + " " + response.body());
+            }
+            accountNumbers.add(accountNumber);
+        }
+        return accountNumbers;
+    }
+
+    // Warm-up phase first (same mix, latencies discarded, changes still in the ledger), then the measured phase
+    public LoadReport run(List<String> accountNumbers) {
+        AccountLedger ledger = new AccountLedger(accountNumbers, profile.initialBalanceCents());
+        SplittableRandom random = new SplittableRandom(profile.seed());
+        drive(new LoadReport(profile, ledger), random, profile.warmup());
+        LoadReport report = new LoadReport(profile, ledger);
+        drive(report, random, profile.duration());
+        return report;
+    }
+
+    private void drive(LoadReport report, SplittableRandom random, Duration duration) {
+        int accounts = report.ledger().size();
+        double meanGapNanos = 1_000_000_000d / profile.requestsPerSecond();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intendedStart = start;
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                intendedStart += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos); // Exponential gap
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = nextOperation(random);
+                int account = nextAccount(random, accounts);
+                long amountCents = operation == Operation.READ ? 0 : 1 + random.nextLong(profile.maxAmountCents());
+                long scheduledAt = intendedStart;
+                requests.execute(() -> execute(operation, account, amountCents, scheduledAt, report));
+            }
+        } // Waits for the requests still in flight
+        report.finish(System.nanoTime() - start);
+    }
+
+    // Balances in cents, in the order of accountNumbers, read through the API
+    public long[] readBalances(List<String> accountNumbers) throws IOException, InterruptedException {
+        long[] balances = new long[accountNumbers.size()];
+        for (int i = 0; i < balances.length; i++) {
+            HttpResponse<String> response = client.send(get(accountsUrl + "/" + accountNumbers.get(i)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not read " + accountNumbers.get(i) + ": " + response.statusCode());
+            }
+            JsonNode account = objectMapper.readTree(response.body());
+            balances[i] = account.get("balance").decimalValue().movePointRight(2).longValueExact();
+        }
+        return balances;
+    }
+
+    private void execute(Operation operation, int account, long amountCents, long intendedStart, LoadReport report) {
+        String accountUrl = accountsUrl + "/" + report.ledger().accountNumbers().get(account);
+        HttpRequest request = switch (operation) {
+            case READ -> get(accountUrl);
+            case DEPOSIT -> post(accountUrl + "/deposit", "{\"amount\":" + amount(amountCents) + "}");
+            case WITHDRAW -> post(accountUrl + "/withdraw", "{\"amount\":" + amount(amountCents) + "}");
+        };
+        long delta = switch (operation) {
+            case READ -> 0;
+            case DEPOSIT -> amountCents;
+            case WITHDRAW -> -amountCents;
+        };
+        Outcome outcome;
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            // 4xx are rejected before anything is written (insufficient funds, validation, rate limit)
+            outcome = status == 200 ? Outcome.OK : status < 500 ? Outcome.REJECTED : Outcome.UNKNOWN;
+        } catch (IOException e) {
+            outcome = Outcome.UNKNOWN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Outcome.UNKNOWN;
+        }
+        if (outcome == Outcome.OK) {
+            report.ledger().confirmed(account, delta);
+        } else if (outcome == Outcome.UNKNOWN && delta != 0) {
+            report.ledger().unknown(account, delta);
+        }
+        report.record(operation, outcome, System.nanoTime() - intendedStart);
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        double draw = random.nextDouble();
+        if (draw < profile.readShare()) {
+            return Operation.READ;
+        }
+        return draw < profile.readShare() + profile.depositShare() ? Operation.DEPOSIT : Operation.WITHDRAW;
+    }
+
+    private int nextAccount(SplittableRandom random, int accounts) {
+        if (profile.mix() == LoadProfile.KeyMix.HOT_KEY && random.nextDouble() < profile.hotShare()) {
+            return random.nextInt(Math.min(profile.hotAccounts(), accounts));
+        }
+        return random.nextInt(accounts);
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String amount(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    public enum Operation {
+        READ, DEPOSIT, WITHDRAW
+    }
+
+    public enum Outcome {
+        OK,       // 200, change applied
+        REJECTED, // 4xx, nothing changed
+        UNKNOWN   // 5xx or no response, the change may or may not have been committed
+    }
+}
@@ -0,0 +1,46 @@
+package com.midou.ben.bankingapp.load;
+
+import java.time.Duration;
+
+/**
+ * Shape of one load run: arrival rate (open model, independent of response times), warm-up and measured duration,
+ * which accounts are targeted and the read/deposit/withdraw mix. Amounts are in cents.
+ */
+public record LoadProfile(
+        int accounts,
+        double requestsPerSecond,
+        Duration warmup,
+        Duration duration,
+        KeyMix mix,
+        int hotAccounts,
+        double hotShare,
+        double readShare,
+        double depositShare,
+        long initialBalanceCents,
+        long maxAmountCents,
+        long seed
+) {
+
+    public enum KeyMix {
+        UNIFORM, // Every account equally likely
+        HOT_KEY  // hotShare of the requests go to the first hotAccounts accounts
+    }
+
+    // Short smoke-run defaults, kept below the rate where the app saturates on embedded H2 (about 140 req/s on a
+    // small machine, queueing pushes p50 past a second); scale up with e.g. -Dload.rate=2000 -Dload.duration=60
+    public static LoadProfile fromSystemProperties(KeyMix mix) {
+        return new LoadProfile(
+                Integer.getInteger("load.accounts", 200),
+                Double.parseDouble(System.getProperty("load.rate", "50")),
+                Duration.ofSeconds(Long.getLong("load.warmup", 3L)),
+                Duration.ofSeconds(Long.getLong("load.duration", 3L)),
+                mix,
+                Integer.getInteger("load.hot-accounts", 5),
+                Double.parseDouble(System.getProperty("load.hot-share", "0.8")),
+                Double.parseDouble(System.getProperty("load.read-share", "0.4")),
+                Double.parseDouble(System.getProperty("load.deposit-share", "0.3")),
+                Long.getLong("load.initial-balance-cents", 100_000L),
+                Long.getLong("load.max-amount-cents", 20_000L),
+                Long.getLong("load.seed", 42L));
+    }
+}
@@ -0,0 +1,91 @@
+package com.midou.ben.bankingapp.load;
+
+import com.midou.ben.bankingapp.load.LoadGenerator.Operation;
+import com.midou.ben.bankingapp.load.LoadGenerator.Outcome;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution (microseconds, from intended arrival) and outcome counts per operation of one run.
+ */
+public class LoadReport {
+
+    private final LoadProfile profile;
+    private final AccountLedger ledger;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Outcome, LongAdder>> outcomes = new EnumMap<>(Operation.class);
+    private long elapsedNanos;
+
+    public LoadReport(LoadProfile profile, AccountLedger ledger) {
+        this.profile = profile;
+        this.ledger = ledger;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3)); // Auto-resizing, 3 significant digits
+            Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                counts.put(outcome, new LongAdder());
+            }
+            outcomes.put(operation, counts);
+        }
+    }
+
+    void record(Operation operation, Outcome outcome, long latencyNanos) {
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        outcomes.get(operation).get(outcome).increment();
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public AccountLedger ledger() {
+        return ledger;
+    }
+
+    public long count(Outcome outcome) {
+        return outcomes.values().stream().mapToLong(counts -> counts.get(outcome).sum()).sum();
+    }
+
+    public void print(PrintStream out) {
+        double seconds = elapsedNanos / 1e9;
+        long total = latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        out.printf("Load run: %s mix, %d accounts, target %.0f req/s, achieved %.0f req/s over %.1f s (after %d s warm-up)%n",
+                profile.mix(), profile.accounts(), profile.requestsPerSecond(), total / seconds, seconds, profile.warmup().toSeconds());
+        out.printf("%-9s %8s %8s %8s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ok", "rejected", "unknown", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            Map<Outcome, LongAdder> counts = outcomes.get(operation);
+            out.printf("%-9s %8d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", operation, histogram.getTotalCount(),
+                    counts.get(Outcome.OK).sum(), counts.get(Outcome.REJECTED).sum(), counts.get(Outcome.UNKNOWN).sum(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    // One .hgrm percentile file per operation (plot with HdrHistogram's histogram plotter)
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String prefix = profile.mix().name().toLowerCase().replace('_', '-');
+        for (Operation operation : Operation.values()) {
+            Path file = directory.resolve(prefix + "-" + operation.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                latencies.get(operation).outputPercentileDistribution(out, 1000.0); // In milliseconds
+            }
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,44 @@
+package com.midou.ben.bankingapp.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Invariants every load run must leave intact, checked against the balances read back after the run:
+ * no negative balance, every account holds exactly its initial balance plus its acknowledged deposits
+ * minus its acknowledged withdrawals (a lost update breaks this), and the same holds for the total.
+ */
+public final class MoneyInvariants {
+
+    private MoneyInvariants() {
+    }
+
+    // Human readable violations, empty when the run was correct
+    public static List<String> check(AccountLedger ledger, long[] finalBalancesCents) {
+        List<String> violations = new ArrayList<>();
+        long total = 0;
+        long minTotal = 0;
+        long maxTotal = 0;
+        for (int i = 0; i < ledger.size(); i++) {
+            String accountNumber = ledger.accountNumbers().get(i);
+            long balance = finalBalancesCents[i];
+            if (balance < 0) {
+                violations.add("Negative balance on " + accountNumber + ": " + balance);
+            }
+            long min = ledger.minExpected(i);
+            long max = ledger.maxExpected(i);
+            if (balance < min || balance > max) {
+                violations.add("Lost update on " + accountNumber + ": balance " + balance
+                        + (min == max ? ", expected " + min : ", expected between " + min + " and " + max));
+            }
+            total += balance;
+            minTotal += min;
+            maxTotal += max;
+        }
+        if (total < minTotal || total > maxTotal) {
+            violations.add("Money not conserved: total " + total
+                    + (minTotal == maxTotal ? ", expected " + minTotal : ", expected between " + minTotal + " and " + maxTotal));
+        }
+        return violations;
+    }
+}
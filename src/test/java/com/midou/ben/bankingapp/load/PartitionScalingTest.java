@@ -0,0 +1,184 @@
+package com.midou.ben.bankingapp.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.midou.ben.bankingapp.BankingappApplication;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write throughput of the partitioned deployment with 1, 2 and 4 nodes: closed-model clients deposit as fast as
+ * they can, each request sent straight to the node hosting the account, on every node's own H2 file databases.
+ * Every run must keep {@link MoneyInvariants}. All nodes run in this JVM, so on one machine they share its CPUs
+ * and disk: the numbers only show scaling when the machine has cores to spare, and are not a substitute for nodes
+ * on separate hosts. Throughput is therefore only reported, unless load.scaling.min-ratio is set: then the largest
+ * node count must reach that multiple of the smallest one's throughput.
+ * Excluded from the default build: mvn -Pload test -Dtest=PartitionScalingTest
+ * [-Dload.scaling.nodes=1,2,4 -Dload.scaling.clients=32 -Dload.scaling.duration=10 -Dload.scaling.accounts=400
+ * -Dload.scaling.min-ratio=1.5]
+ */
+@Tag("load")
+class PartitionScalingTest {
+
+    private static final int PARTITIONS = 16;
+    private static final String SECRET = "scaling-test-secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+    @Test
+    void deposits_shouldKeepMoneyInvariantsAtEveryNodeCount() throws Exception {
+        int[] nodeCounts = Arrays.stream(System.getProperty("load.scaling.nodes", "1,2,4").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim())).toArray();
+        List<String> results = new ArrayList<>();
+        double[] perSecond = new double[nodeCounts.length];
+        for (int i = 0; i < nodeCounts.length; i++) {
+            perSecond[i] = measure(nodeCounts[i]);
+            results.add(String.format("%d node(s): %.0f deposits/s", nodeCounts[i], perSecond[i]));
+        }
+        System.out.println("Partitioned write throughput (" + Runtime.getRuntime().availableProcessors() + " CPUs): " + results);
+
+        String minRatio = System.getProperty("load.scaling.min-ratio");
+        if (minRatio != null && nodeCounts.length > 1) {
+            double ratio = perSecond[nodeCounts.length - 1] / perSecond[0];
+            assertTrue(ratio >= Double.parseDouble(minRatio), String.format("scaling ratio %.2f below %s: %s", ratio, minRatio, results));
+        }
+    }
+
+    private double measure(int nodeCount) throws Exception {
+        int clients = Integer.getInteger("load.scaling.clients", 32);
+        long durationNanos = Long.getLong("load.scaling.duration", 10L) * 1_000_000_000L;
+        int accountCount = Integer.getInteger("load.scaling.accounts", 400);
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            urls.add("http://localhost:" + freePort());
+        }
+        List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+        try {
+            String run = "n" + nodeCount + "-" + System.nanoTime();
+            for (int i = 0; i < nodeCount; i++) {
+                nodes.add(start(i, urls, run));
+            }
+            // Arrange: accounts created on the nodes hosting them
+            ClusterMembership membership = nodes.get(0).getBean(ClusterMembership.class);
+            for (ConfigurableApplicationContext node : nodes) {
+                assertEquals(node.getBean(ClusterMembership.class).localPartitions(), node.getBean(PartitionStore.class).heldPartitions());
+            }
+            List<String> accounts = new ArrayList<>();
+            List<String> hosts = new ArrayList<>();
+            for (int i = 0; i < accountCount; i++) {
+                String accountNumber = "SCALE" + i;
+                String host = membership.nodeUrl(membership.ownerOf(membership.partitionOf(accountNumber)));
+                assertEquals(201, post(host + "/api/v1/accounts",
+                        "{\"accountNumber\":\"" + accountNumber + "\",\"ownerName\":\"Scale " + i + "\",\"initialBalance\":0}"));
+                accounts.add(accountNumber);
+                hosts.add(host);
+            }
+
+            // Act: every client deposits 1 into the next account until the time is up
+            AccountLedger ledger = new AccountLedger(accounts, 0);
+            AtomicLong deposits = new AtomicLong();
+            AtomicLong failures = new AtomicLong();
+            long deadline = System.nanoTime() + durationNanos;
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int c = 0; c < clients; c++) {
+                    int first = c;
+                    futures.add(workers.submit(() -> {
+                        for (int i = first; System.nanoTime() < deadline; i += clients) {
+                            int account = i % accounts.size();
+                            int status = post(hosts.get(account) + "/api/v1/accounts/" + accounts.get(account) + "/deposit", "{\"amount\":1}");
+                            if (status == 200) {
+                                ledger.confirmed(account, 100);
+                                deposits.incrementAndGet();
+                            } else {
+                                ledger.unknown(account, 100);
+                                failures.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            // Assert: every deposit landed once
+            long[] balancesCents = new long[accounts.size()];
+            for (int i = 0; i < accounts.size(); i++) {
+                HttpResponse<String> account = client.send(HttpRequest.newBuilder(URI.create(hosts.get(i) + "/api/v1/accounts/" + accounts.get(i))).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                balancesCents[i] = objectMapper.readTree(account.body()).get("balance").decimalValue().movePointRight(2).longValueExact();
+            }
+            assertEquals(List.of(), MoneyInvariants.check(ledger, balancesCents), nodeCount + " node(s)");
+            assertEquals(0, failures.get());
+            return deposits.get() * 1_000_000_000.0 / durationNanos;
+        } finally {
+            nodes.reversed().forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    private int post(String url, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static ConfigurableApplicationContext start(int index, List<String> urls, String run) {
+        // The partitioned profile's settings without its two-node list, which would add nodes that are not running
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=" + URI.create(urls.get(index)).getPort(),
+                "--app.partition.enabled=true",
+                "--app.partition.node-id=node-" + (index + 1),
+                "--app.partition.count=" + PARTITIONS,
+                "--app.partition.routing=redirect",
+                "--app.partition.cluster-secret=" + SECRET,
+                "--app.partition.datasource-url=jdbc:h2:file:./target/load/scaling/" + run + "/{node}/p{partition}",
+                "--app.partition.handover-interval-ms=1000",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false",
+                "--spring.jpa.open-in-view=false",
+                "--spring.sql.init.mode=never",
+                "--management.health.db.enabled=false",
+                "--spring.task.scheduling.pool.size=4",
+                "--app.ratelimit.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+                "--logging.level.com.midou.ben.bankingapp=WARN"));
+        for (int i = 0; i < urls.size(); i++) {
+            args.add("--app.partition.nodes.node-" + (i + 1) + "=" + urls.get(i));
+        }
+        return new SpringApplicationBuilder(BankingappApplication.class)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
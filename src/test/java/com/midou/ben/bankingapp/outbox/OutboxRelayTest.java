@@ -0,0 +1,144 @@
+package com.midou.ben.bankingapp.outbox;
+
+import com.midou.ben.bankingapp.model.Account;
+import com.midou.ben.bankingapp.model.OutboxEvent;
+import com.midou.ben.bankingapp.model.OutboxEventType;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionProperties;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.repository.OutboxEventRepository;
+import com.midou.ben.bankingapp.repository.OutboxEventRepository.OutboxBacklog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InMemoryOutboxEventSink sink;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        sink = new InMemoryOutboxEventSink();
+        meterRegistry = new SimpleMeterRegistry();
+        PartitionStore partitionStore = new PartitionStore(new ClusterMembership(new PartitionProperties(), meterRegistry),
+                mock(DataSource.class), meterRegistry);
+        relay = new OutboxRelay(outboxEventRepository, sink, partitionStore, transactionManager, meterRegistry, 2);
+    }
+
+    @Test
+    void relayPendingEvents_shouldPublishInIdOrderAndMarkPublished() {
+        // Arrange
+        OutboxEvent first = event(1L, "ACC001", OutboxEventType.DEPOSIT);
+        OutboxEvent second = event(2L, "ACC001", OutboxEventType.WITHDRAWAL);
+        OutboxEvent third = event(3L, "ACC002", OutboxEventType.ACCOUNT_CREATED);
+        when(outboxEventRepository.claimPendingBatch(2))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(outboxEventRepository.findFirstPendingId()).thenReturn(1L).thenReturn(3L);
+        when(outboxEventRepository.findBacklog()).thenReturn(backlog(0, null));
+        List<Long> received = new ArrayList<>();
+        sink.subscribe(event -> received.add(event.getId()));
+
+        // Act
+        relay.relayPendingEvents();
+        relay.refreshLag();
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), received);
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(outboxEventRepository).markPublished(eq(List.of(3L)), any(LocalDateTime.class));
+        assertEquals(3.0, meterRegistry.counter("bankingapp.outbox.published").count());
+        assertEquals(0, relay.getLagMillis());
+    }
+
+    @Test
+    void relayPendingEvents_whenSinkFails_shouldLeaveBatchPendingForRetry() {
+        // Arrange
+        OutboxEvent pending = event(1L, "ACC001", OutboxEventType.DEPOSIT);
+        pending.setOccurredAt(LocalDateTime.now().minusSeconds(5));
+        when(outboxEventRepository.claimPendingBatch(2)).thenReturn(List.of(pending));
+        when(outboxEventRepository.findFirstPendingId()).thenReturn(1L);
+        when(outboxEventRepository.findBacklog()).thenReturn(backlog(1, pending.getOccurredAt()));
+        sink.subscribe(event -> {
+            throw new IllegalStateException("Consumer unavailable");
+        });
+
+        // Act
+        relay.relayPendingEvents();
+        relay.refreshLag();
+
+        // Assert
+        verify(outboxEventRepository, never()).markPublished(anyCollection(), any(LocalDateTime.class));
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.counter("bankingapp.outbox.failures").count());
+        assertTrue(relay.getLagMillis() >= 5000);
+    }
+
+    @Test
+    void relayPendingEvents_whenHeadClaimedByAnotherRelay_shouldBackOffWithoutPublishing() {
+        // Arrange: events 1 and 2 are locked by another relay, this one could only claim 3
+        when(outboxEventRepository.claimPendingBatch(2)).thenReturn(List.of(event(3L, "ACC001", OutboxEventType.DEPOSIT)));
+        when(outboxEventRepository.findFirstPendingId()).thenReturn(1L);
+        SimpleTransactionStatus transaction = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        List<Long> received = new ArrayList<>();
+        sink.subscribe(event -> received.add(event.getId()));
+
+        // Act
+        relay.relayPendingEvents();
+
+        // Assert
+        assertTrue(received.isEmpty());
+        verify(outboxEventRepository, never()).markPublished(anyCollection(), any(LocalDateTime.class));
+        assertEquals(1.0, meterRegistry.counter("bankingapp.outbox.contended").count());
+        assertTrue(transaction.isRollbackOnly());
+        assertEquals(0.0, meterRegistry.counter("bankingapp.outbox.failures").count());
+    }
+
+    private OutboxBacklog backlog(long pending, LocalDateTime oldestOccurredAt) {
+        return new OutboxBacklog() {
+            @Override
+            public long getPending() {
+                return pending;
+            }
+
+            @Override
+            public LocalDateTime getOldestOccurredAt() {
+                return oldestOccurredAt;
+            }
+        };
+    }
+
+    private OutboxEvent event(Long id, String accountNumber, OutboxEventType type) {
+        Account account = new Account(accountNumber, "Midou Ben", new BigDecimal("100.00"));
+        OutboxEvent event = new OutboxEvent(account, type, new BigDecimal("10.00"));
+        event.setId(id);
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,65 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.midou.ben.bankingapp.dto.ClusterMembershipUpdate;
+import com.midou.ben.bankingapp.exception.ClusterException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterMembershipTest {
+
+    @Test
+    void apply_whenChangesAreConcurrent_shouldConvergeOnTheSameMembership() {
+        // Arrange: node-1 and node-2 each accept a different join at the same time
+        ClusterMembership node1 = membership("node-1");
+        ClusterMembership node2 = membership("node-2");
+        ClusterMembershipUpdate joinedOnNode1 = node1.join("node-3", "http://localhost:8083");
+        ClusterMembershipUpdate joinedOnNode2 = node2.join("node-4", "http://localhost:8084");
+        assertEquals(joinedOnNode1.version(), joinedOnNode2.version());
+
+        // Act: each hears about the other's change
+        node1.apply(joinedOnNode2);
+        node2.apply(joinedOnNode1);
+
+        // Assert: same membership and same owners everywhere, whichever change won
+        assertEquals(node1.current(), node2.current());
+        for (int partition = 0; partition < 16; partition++) {
+            assertEquals(node1.ownerOf(partition), node2.ownerOf(partition));
+        }
+    }
+
+    @Test
+    void apply_whenOlderOrSame_shouldBeIgnored() {
+        // Arrange
+        ClusterMembership node1 = membership("node-1");
+        ClusterMembershipUpdate initial = node1.current();
+        node1.join("node-3", "http://localhost:8083");
+
+        // Act & Assert
+        assertFalse(node1.apply(initial));
+        assertFalse(node1.apply(node1.current()));
+    }
+
+    @Test
+    void join_whenUrlNotAllowed_shouldThrowClusterException() {
+        ClusterMembership node1 = membership("node-1");
+        assertThrows(ClusterException.class, () -> node1.join("node-3", "http://attacker.example"));
+        assertThrows(ClusterException.class, () -> node1.apply(
+                new ClusterMembershipUpdate(99, Map.of("node-1", "http://attacker.example"))));
+        assertEquals(1, node1.current().version());
+    }
+
+    private static ClusterMembership membership(String nodeId) {
+        PartitionProperties properties = new PartitionProperties();
+        properties.setEnabled(true);
+        properties.setCount(16);
+        properties.setNodeId(nodeId);
+        properties.setNodes(Map.of("node-1", "http://localhost:8081", "node-2", "http://localhost:8082"));
+        properties.setAllowedNodeUrls(List.of("http://localhost:8083", "http://localhost:8084"));
+        return new ClusterMembership(properties, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,70 @@
+package com.midou.ben.bankingapp.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int PARTITIONS = 256;
+
+    @Test
+    void partitionOf_shouldBeStableAndInRange() {
+        for (int i = 0; i < 1000; i++) {
+            int partition = ConsistentHashRing.partitionOf("ACC" + i, PARTITIONS);
+            assertTrue(partition >= 0 && partition < PARTITIONS);
+            assertEquals(partition, ConsistentHashRing.partitionOf("ACC" + i, PARTITIONS));
+        }
+    }
+
+    @Test
+    void ownerOf_shouldSpreadPartitionsOverNodes() {
+        // Arrange
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 64);
+
+        // Act
+        Map<String, Integer> owned = new HashMap<>();
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            owned.merge(ring.ownerOf(partition), 1, Integer::sum);
+        }
+
+        // Assert: every node gets a fair share (a third would be ~85)
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertTrue(count > 50, "unbalanced ring: " + owned));
+    }
+
+    @Test
+    void ownerOf_whenNodeJoins_shouldOnlyMovePartitionsToTheNewNode() {
+        // Arrange
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-1", "node-2", "node-3", "node-4"), 64);
+
+        // Act & Assert
+        int moved = 0;
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            if (!before.ownerOf(partition).equals(after.ownerOf(partition))) {
+                assertEquals("node-4", after.ownerOf(partition));
+                moved++;
+            }
+        }
+        assertTrue(moved > 0 && moved < PARTITIONS / 2, "moved " + moved); // About a quarter, not a reshuffle
+    }
+
+    @Test
+    void ownerOf_whenNodeLeaves_shouldOnlyMoveItsPartitions() {
+        // Arrange
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-1", "node-2", "node-3"), 64);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-1", "node-3"), 64);
+
+        // Act & Assert
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            if (!before.ownerOf(partition).equals("node-2")) {
+                assertEquals(before.ownerOf(partition), after.ownerOf(partition));
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.midou.ben.bankingapp.partition;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionConfigTest {
+
+    @Test
+    void partitionRoutingDataSource_whenUrlIsNotH2_shouldFailAtStartup() {
+        // Arrange
+        PartitionProperties properties = new PartitionProperties();
+        properties.setEnabled(true);
+        properties.setDatasourceUrl("jdbc:postgresql://localhost/bank_{node}_p{partition}");
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new PartitionConfig().partitionRoutingDataSource(properties));
+        assertTrue(exception.getMessage().contains("app.partition.datasource-url"));
+    }
+}
@@ -0,0 +1,273 @@
+package com.midou.ben.bankingapp.partition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.midou.ben.bankingapp.BankingappApplication;
+import com.midou.ben.bankingapp.repository.AccountRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes in this JVM with the partitioned profile: node-1 forwards requests it does not own, node-2 redirects
+ * them. Each node has its own named in-memory H2 database per partition, so an account is only on the node
+ * hosting its partition and membership changes have to hand the databases over.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class PartitionedClusterTest {
+
+    private static final int PARTITIONS = 8;
+    private static final String SECRET = "cluster-test-secret";
+
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+    private static String url1;
+    private static String url2;
+    private static final List<String> accounts = new ArrayList<>();
+
+    private final HttpClient client = HttpClient.newHttpClient(); // Does not follow redirects
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int port1 = freePort();
+        int port2 = freePort();
+        url1 = "http://localhost:" + port1;
+        url2 = "http://localhost:" + port2;
+        node1 = start("node-1", port1, "forward");
+        node2 = start("node-2", port2, "redirect");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        node2.close();
+        node1.close();
+    }
+
+    @Test
+    @Order(1)
+    void accounts_shouldLiveInTheirPartitionAndBeServedThroughAnyNode() throws Exception {
+        // Act: create and credit accounts through node-1, whichever node owns them
+        for (int i = 0; i < 20; i++) {
+            String accountNumber = "PART" + i;
+            HttpResponse<String> created = send(url1, "POST", "/api/v1/accounts",
+                    "{\"accountNumber\":\"" + accountNumber + "\",\"ownerName\":\"Owner " + i + "\",\"initialBalance\":100}");
+            assertEquals(201, created.statusCode(), created.body());
+            assertFalse(objectMapper.readTree(created.body()).has("id")); // Per-partition ids are left out
+            assertEquals(200, send(url1, "POST", "/api/v1/accounts/" + accountNumber + "/deposit", "{\"amount\":5}").statusCode());
+            accounts.add(accountNumber);
+        }
+
+        // Assert: each account is stored in its partition's database on the node hosting it, and nowhere else
+        ClusterMembership membership = node1.getBean(ClusterMembership.class);
+        PartitionStore store1 = node1.getBean(PartitionStore.class);
+        AccountRepository repository1 = node1.getBean(AccountRepository.class);
+        AccountRepository repository2 = node2.getBean(AccountRepository.class);
+        for (String accountNumber : accounts) {
+            int partition = membership.partitionOf(accountNumber);
+            AccountRepository holder = store1.isHeld(partition) ? repository1 : repository2;
+            AccountRepository other = store1.isHeld(partition) ? repository2 : repository1;
+            assertTrue(PartitionContext.callIn(partition, () -> holder.findByAccountNumber(accountNumber)).isPresent());
+            assertTrue(PartitionContext.callIn(partition, () -> other.findByAccountNumber(accountNumber)).isEmpty());
+        }
+
+        // Both nodes own and host partitions; node-2 serves its own accounts and redirects the others to node-1
+        assertFalse(membership.localPartitions().isEmpty());
+        assertFalse(node2.getBean(ClusterMembership.class).localPartitions().isEmpty());
+        assertEquals(membership.localPartitions(), store1.heldPartitions());
+        assertEquals(node2.getBean(ClusterMembership.class).localPartitions(), node2.getBean(PartitionStore.class).heldPartitions());
+        for (String accountNumber : accounts) {
+            HttpResponse<String> viaNode2 = send(url2, "GET", "/api/v1/accounts/" + accountNumber, null);
+            if (membership.isLocal(membership.partitionOf(accountNumber))) {
+                assertEquals(307, viaNode2.statusCode());
+                assertEquals(url1 + "/api/v1/accounts/" + accountNumber, viaNode2.headers().firstValue("Location").orElseThrow());
+            } else {
+                assertEquals(105.0, balance(viaNode2));
+            }
+            assertEquals(105.0, balance(send(url1, "GET", "/api/v1/accounts/" + accountNumber, null)));
+        }
+
+        // Owner search pages through every partition with the keyset cursor, without repeating or skipping accounts
+        List<String> found = new ArrayList<>();
+        String cursor = null;
+        do {
+            HttpResponse<String> page = send(url1, "GET", "/api/v1/accounts?owner=owner&size=7" + (cursor == null ? "" : "&after=" + cursor), null);
+            assertEquals(200, page.statusCode(), page.body());
+            JsonNode body = objectMapper.readTree(page.body());
+            body.get("content").forEach(account -> found.add(account.get("accountNumber").asText()));
+            cursor = body.get("hasNext").asBoolean() ? body.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        assertEquals(accounts.stream().sorted(Comparator.comparing(number -> "owner " + number.substring(4))).toList(), found);
+    }
+
+    @Test
+    @Order(2)
+    void membershipChanges_shouldMoveOwnershipWithoutLosingData() throws Exception {
+        JsonNode initial = objectMapper.readTree(sendAsNode(url1, "GET", "/api/v1/cluster", null).body());
+        JsonNode node2Partitions = initial.get("partitionsByNode").get("node-2");
+
+        // Act: node-2 leaves, announced through node-1
+        JsonNode afterLeave = objectMapper.readTree(sendAsNode(url1, "DELETE", "/api/v1/cluster/nodes/node-2", null).body());
+
+        // Assert: node-1 took every partition and pulled node-2's databases, node-2 heard about it and now redirects,
+        // no balance changed
+        assertEquals(initial.get("version").asLong() + 1, afterLeave.get("version").asLong());
+        assertEquals(PARTITIONS, afterLeave.get("partitionsByNode").get("node-1").size());
+        assertEquals(afterLeave.get("version"), objectMapper.readTree(sendAsNode(url2, "GET", "/api/v1/cluster", null).body()).get("version"));
+        awaitHostedByOwners();
+        assertEquals(PARTITIONS, node1.getBean(PartitionStore.class).heldPartitions().size());
+        for (String accountNumber : accounts) {
+            assertEquals(104.0, balance(send(url1, "POST", "/api/v1/accounts/" + accountNumber + "/withdraw", "{\"amount\":1}")));
+            assertEquals(307, send(url2, "GET", "/api/v1/accounts/" + accountNumber, null).statusCode());
+        }
+
+        // Act: node-2 joins again, announced through itself
+        JsonNode afterJoin = objectMapper.readTree(sendAsNode(url2, "PUT", "/api/v1/cluster/nodes/node-2", "{\"url\":\"" + url2 + "\"}").body());
+
+        // Assert: the ring gives node-2 back exactly the partitions it had, and their databases with the withdrawals
+        assertEquals(afterLeave.get("version").asLong() + 1, afterJoin.get("version").asLong());
+        assertEquals(node2Partitions, afterJoin.get("partitionsByNode").get("node-2"));
+        assertEquals(node2Partitions, objectMapper.readTree(sendAsNode(url1, "GET", "/api/v1/cluster", null).body())
+                .get("partitionsByNode").get("node-2"));
+        awaitHostedByOwners();
+        assertEquals(node2Partitions, objectMapper.readTree(sendAsNode(url2, "GET", "/api/v1/cluster", null).body()).get("heldPartitions"));
+        ClusterMembership membership2 = node2.getBean(ClusterMembership.class);
+        for (String accountNumber : accounts) {
+            if (membership2.isLocal(membership2.partitionOf(accountNumber))) {
+                assertEquals(104.0, balance(send(url2, "GET", "/api/v1/accounts/" + accountNumber, null)));
+            }
+        }
+    }
+
+    @Test
+    @Order(3)
+    void clusterCalls_shouldNeedTheSecretAndAnAllowedNodeUrl() throws Exception {
+        // Act & Assert: a membership pushed by a client is rejected, whatever its version
+        String hijack = "{\"version\":999999,\"nodes\":{\"evil\":\"http://attacker.example\"}}";
+        assertEquals(401, send(url1, "PUT", "/api/v1/cluster/membership", hijack).statusCode());
+        assertEquals(401, send(url1, "GET", "/api/v1/cluster", null).statusCode());
+
+        // Even with the secret, nodes can only point at configured URLs
+        assertEquals(400, sendAsNode(url1, "PUT", "/api/v1/cluster/membership", hijack).statusCode());
+        assertEquals(400, sendAsNode(url1, "PUT", "/api/v1/cluster/nodes/node-3", "{\"url\":\"http://attacker.example\"}").statusCode());
+        assertEquals(2, objectMapper.readTree(sendAsNode(url1, "GET", "/api/v1/cluster", null).body()).get("nodes").size());
+    }
+
+    @Test
+    @Order(4)
+    void forwardingHeader_shouldBeIgnoredWithoutTheSecret() throws Exception {
+        // Arrange: an account node-2 does not own
+        ClusterMembership membership = node2.getBean(ClusterMembership.class);
+        String foreign = accounts.stream()
+                .filter(accountNumber -> !membership.isLocal(membership.partitionOf(accountNumber)))
+                .findFirst().orElseThrow();
+
+        // Act: a client pretends to be a forwarding node
+        HttpRequest spoofed = HttpRequest.newBuilder(URI.create(url2 + "/api/v1/accounts/" + foreign))
+                .header(PartitionForwarder.FORWARDED_BY_HEADER, "node-1")
+                .GET().build();
+
+        // Assert: routed like any client request, not served by the non-owner
+        assertEquals(307, client.send(spoofed, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @Order(5)
+    void missedMembership_shouldBePulledByThePeer() throws Exception {
+        // Arrange: node-1 changes its membership without telling node-2
+        ClusterMembership membership1 = node1.getBean(ClusterMembership.class);
+        ClusterMembership membership2 = node2.getBean(ClusterMembership.class);
+        membership1.leave("node-2");
+
+        // Act: wait for node-2's next pulls
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!membership1.current().equals(membership2.current()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        // Assert: node-2 adopted it, then both take node-2 back through the API
+        assertEquals(membership1.current(), membership2.current());
+        assertTrue(membership2.localPartitions().isEmpty());
+        assertEquals(200, sendAsNode(url2, "PUT", "/api/v1/cluster/nodes/node-2", "{\"url\":\"" + url2 + "\"}").statusCode());
+        assertFalse(membership2.localPartitions().isEmpty());
+        awaitHostedByOwners();
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId, int port, String routing) {
+        return new SpringApplicationBuilder(BankingappApplication.class)
+                .profiles("partitioned")
+                .run("--server.port=" + port,
+                        "--app.partition.node-id=" + nodeId,
+                        "--app.partition.nodes.node-1=" + url1,
+                        "--app.partition.nodes.node-2=" + url2,
+                        "--app.partition.count=" + PARTITIONS,
+                        "--app.partition.routing=" + routing,
+                        "--app.partition.cluster-secret=" + SECRET,
+                        "--app.partition.sync-interval-ms=200",
+                        "--app.partition.handover-interval-ms=200",
+                        "--app.partition.datasource-url=jdbc:h2:mem:cluster-test-{node}-p{partition};DB_CLOSE_DELAY=-1",
+                        "--app.ratelimit.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=INFO",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+                        "--logging.level.com.midou.ben.bankingapp=WARN");
+    }
+
+    // Handovers run in the background: wait until every partition is hosted by its owner on both nodes
+    private static void awaitHostedByOwners() throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!(hostsOwned(node1) && hostsOwned(node2)) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(hostsOwned(node1) && hostsOwned(node2), "partitions not handed over in time");
+    }
+
+    private static boolean hostsOwned(ConfigurableApplicationContext node) {
+        return node.getBean(PartitionStore.class).heldPartitions().equals(node.getBean(ClusterMembership.class).localPartitions());
+    }
+
+    private HttpResponse<String> sendAsNode(String baseUrl, String method, String path, String json) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)).header(ClusterCredentials.HEADER, SECRET), method, json);
+    }
+
+    private HttpResponse<String> send(String baseUrl, String method, String path, String json) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path)), method, json);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, String method, String json) throws Exception {
+        if (json != null) {
+            request.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(json));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private double balance(HttpResponse<String> response) throws IOException {
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("balance").asDouble();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.midou.ben.bankingapp.ratelimit;
+
+import com.midou.ben.bankingapp.controller.AccountController;
+import com.midou.ben.bankingapp.dto.TransactionRequest;
+import com.midou.ben.bankingapp.json.AccountJsonWriter;
+import com.midou.ben.bankingapp.partition.ClusterCredentials;
+import com.midou.ben.bankingapp.partition.PartitionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RateLimitInterceptorTest {
+
+    private RateLimitProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ClusterCredentials credentials;
+    private HandlerMethod depositHandler;
+    private HandlerMethod getAccountHandler;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        properties = new RateLimitProperties();
+        RateLimitProperties.Limit depositLimit = new RateLimitProperties.Limit();
+        depositLimit.setRequestsPerSecond(1);
+        depositLimit.setBurst(2);
+        properties.getEndpoints().put("AccountController.deposit", depositLimit);
+        meterRegistry = new SimpleMeterRegistry();
+        PartitionProperties partitionProperties = new PartitionProperties();
+        partitionProperties.setClusterSecret("cluster-secret");
+        credentials = new ClusterCredentials(partitionProperties);
+        AccountController controller = mock(AccountController.class);
+        depositHandler = new HandlerMethod(controller,
+                AccountController.class.getMethod("deposit", String.class, TransactionRequest.class));
+        getAccountHandler = new HandlerMethod(controller, AccountController.class.getMethod("getAccount", String.class));
+    }
+
+    @Test
+    void preHandle_whenClientExceedsEndpointLimit_shouldRejectWith429AndRetryAfter() throws Exception {
+        // Arrange
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, meterRegistry, new AccountJsonWriter(16), credentials);
+
+        // Act & Assert: burst of 2 admitted, third rejected
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+        Attempt rejected = admit(interceptor, "client-a", depositHandler);
+        assertFalse(rejected.admitted);
+        assertEquals(429, rejected.response.getStatus());
+        assertEquals("1", rejected.response.getHeader("Retry-After"));
+        assertEquals("application/problem+json", rejected.response.getContentType());
+        assertEquals("{\"code\":\"RATE_LIMITED\",\"status\":429,\"detail\":\"Rate limit exceeded.\"}",
+                rejected.response.getContentAsString());
+        assertEquals(1.0, meterRegistry.counter("bankingapp.ratelimit.rejected").count());
+
+        // Other clients and other endpoints keep their own budget
+        assertTrue(admit(interceptor, "client-b", depositHandler).admitted);
+        assertTrue(admit(interceptor, "client-a", getAccountHandler).admitted);
+    }
+
+    @Test
+    void preHandle_whenConcurrencyLimitReached_shouldShedWith503() throws Exception {
+        // Arrange
+        properties.getConcurrency().setInitialLimit(1);
+        properties.getConcurrency().setMinLimit(1);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, meterRegistry, new AccountJsonWriter(16), credentials);
+        Attempt inFlight = admit(interceptor, "client-a", getAccountHandler);
+        assertTrue(inFlight.admitted);
+
+        // Act
+        Attempt shed = admit(interceptor, "client-b", getAccountHandler);
+
+        // Assert
+        assertFalse(shed.admitted);
+        assertEquals(503, shed.response.getStatus());
+        assertNotNull(shed.response.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.counter("bankingapp.ratelimit.shed").count());
+
+        // Completing the first request frees its slot
+        interceptor.afterCompletion(inFlight.request, inFlight.response, getAccountHandler, null);
+        assertEquals(0, interceptor.getConcurrencyLimiter().getInFlight());
+        assertTrue(admit(interceptor, "client-b", getAccountHandler).admitted);
+    }
+
+    @Test
+    void preHandle_shouldKeepSeparateBucketsForSameNamedHandlersOfDifferentControllers() throws Exception {
+        // Arrange
+        properties.getEndpoints().put("deposit", properties.getEndpoints().get("AccountController.deposit"));
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, meterRegistry, new AccountJsonWriter(16), credentials);
+        HandlerMethod otherDeposit = new HandlerMethod(new OtherController(),
+                OtherController.class.getMethod("deposit", String.class, TransactionRequest.class));
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+        assertFalse(admit(interceptor, "client-a", depositHandler).admitted);
+
+        // Act & Assert: same limit (method-name override), but its own budget
+        assertTrue(admit(interceptor, "client-a", otherDeposit).admitted);
+        assertTrue(admit(interceptor, "client-a", otherDeposit).admitted);
+        assertFalse(admit(interceptor, "client-a", otherDeposit).admitted);
+    }
+
+    @Test
+    void preHandle_whenApiKeysConfigured_shouldKeyUnknownKeysByRemoteAddress() throws Exception {
+        // Arrange
+        properties.setApiKeys(Set.of("client-a"));
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, meterRegistry, new AccountJsonWriter(16), credentials);
+
+        // Act & Assert: made-up keys from one address share that address's bucket
+        assertTrue(admit(interceptor, "forged-1", depositHandler).admitted);
+        assertTrue(admit(interceptor, "forged-2", depositHandler).admitted);
+        assertFalse(admit(interceptor, "forged-3", depositHandler).admitted);
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+    }
+
+    @Test
+    void preHandle_whenClientCapReached_shouldEvictTheBucketClosestToRefilled() throws Exception {
+        // Arrange: client-a used up its budget, client-b made a single request
+        properties.setMaxClientsPerEndpoint(2);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, meterRegistry, new AccountJsonWriter(16), credentials);
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+        assertTrue(admit(interceptor, "client-a", depositHandler).admitted);
+        assertTrue(admit(interceptor, "client-b", depositHandler).admitted);
+
+        // Act & Assert: keys beyond the cap are not starved by a shared budget, and do not reset client-a's
+        for (int i = 0; i < 5; i++) {
+            assertTrue(admit(interceptor, "new-client-" + i, depositHandler).admitted);
+        }
+        assertFalse(admit(interceptor, "client-a", depositHandler).admitted);
+    }
+
+    @Test
+    void preHandle_whenForwardedByClusterNode_shouldNotChargeItAgain() throws Exception {
+        // Arrange: one concurrency slot, already taken
+        properties.getConcurrency().setInitialLimit(1);
+        properties.getConcurrency().setMinLimit(1);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(properties, meterRegistry, new AccountJsonWriter(16), credentials);
+        assertTrue(admit(interceptor, "client-b", getAccountHandler).admitted);
+
+        // Act & Assert: forwarded calls skip both limits, a forged secret does not
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admit(interceptor, "client-a", depositHandler, "cluster-secret").admitted);
+        }
+        assertEquals(1, interceptor.getConcurrencyLimiter().getInFlight());
+        assertFalse(admit(interceptor, "client-a", depositHandler, "guessed-secret").admitted);
+    }
+
+    private Attempt admit(RateLimitInterceptor interceptor, String apiKey, HandlerMethod handler) throws Exception {
+        return admit(interceptor, apiKey, handler, null);
+    }
+
+    private Attempt admit(RateLimitInterceptor interceptor, String apiKey, HandlerMethod handler, String clusterSecret)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-API-Key", apiKey);
+        if (clusterSecret != null) {
+            request.addHeader(ClusterCredentials.HEADER, clusterSecret);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request, response, handler);
+        return new Attempt(admitted, request, response);
+    }
+
+    // Another controller exposing a handler with the same name
+    static class OtherController {
+        public void deposit(String accountNumber, TransactionRequest request) {
+        }
+    }
+
+    private record Attempt(boolean admitted, MockHttpServletRequest request, MockHttpServletResponse response) {
+    }
+}
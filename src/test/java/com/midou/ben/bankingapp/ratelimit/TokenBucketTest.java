@@ -0,0 +1,45 @@
+package com.midou.ben.bankingapp.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_shouldAdmitBurstThenReject() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = 42 * SECOND;
+
+        // Act & Assert
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(now), "Request " + i + " of the burst should be admitted");
+        }
+        long wait = bucket.tryAcquire(now);
+        assertTrue(wait > 0 && wait <= SECOND / 10, "Next token should be at most one interval away but was " + wait);
+    }
+
+    @Test
+    void tryAcquire_shouldRefillAtConfiguredRate() {
+        // Arrange
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = 42 * SECOND;
+        assertEquals(0, bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now) > 0);
+
+        // Act & Assert
+        assertEquals(0, bucket.tryAcquire(now + SECOND / 10));
+        assertFalse(bucket.isFull(now + SECOND / 10));
+        assertTrue(bucket.isFull(now + SECOND));
+    }
+
+    @Test
+    void constructor_whenRateNotPositive_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+    }
+}
@@ -0,0 +1,64 @@
+package com.midou.ben.bankingapp.search;
+
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OwnerNameBackfillTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private OwnerNameBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        // Arrange: an accounts table from before owner search, upgraded with the nullable column
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:backfill-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = spy(new JdbcTemplate(dataSource));
+        jdbcTemplate.execute("create table accounts (id bigint primary key, owner_name varchar(100) not null)");
+        jdbcTemplate.execute("insert into accounts values (1, 'Hélène  DUPONT'), (2, 'Marc Durand')");
+        jdbcTemplate.execute("alter table accounts add column normalized_owner_name varchar(100)");
+        PartitionStore partitionStore = mock(PartitionStore.class);
+        when(partitionStore.heldPartitions()).thenReturn(List.of(0));
+        when(partitionStore.callIfHeld(eq(0), any())).thenAnswer(invocation -> Optional.ofNullable(((Supplier<?>) invocation.getArgument(1)).get()));
+        backfill = new OwnerNameBackfill(partitionStore, jdbcTemplate, new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void run_shouldFillNamesThenMakeTheColumnNotNull() {
+        // Act
+        int updated = backfill.run();
+
+        // Assert
+        assertEquals(2, updated);
+        assertEquals("helene dupont", jdbcTemplate.queryForObject("select normalized_owner_name from accounts where id = 1", String.class));
+        assertEquals("NO", jdbcTemplate.queryForObject("select is_nullable from information_schema.columns"
+                + " where lower(table_name) = 'accounts' and lower(column_name) = 'normalized_owner_name'", String.class));
+    }
+
+    @Test
+    void run_whenColumnAlreadyNotNull_shouldNotAlterTheTableAgain() {
+        // Arrange
+        backfill.run();
+        clearInvocations(jdbcTemplate);
+
+        // Act
+        int updated = backfill.run();
+
+        // Assert
+        assertEquals(0, updated);
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
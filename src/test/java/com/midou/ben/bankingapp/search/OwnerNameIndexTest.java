@@ -0,0 +1,108 @@
+package com.midou.ben.bankingapp.search;
+
+import com.midou.ben.bankingapp.dto.HostedOwnerNamesResponse;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionForwarder;
+import com.midou.ben.bankingapp.partition.PartitionStore;
+import com.midou.ben.bankingapp.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OwnerNameIndexTest {
+
+    private OwnerNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new OwnerNameIndex(mock(AccountRepository.class), mock(ClusterMembership.class), mock(PartitionStore.class),
+                mock(PartitionForwarder.class), mock(OwnerNameBackfill.class), 0.4);
+        index.add("helene dupont");
+        index.add("helene durand");
+        index.add("marc dupont");
+        index.add("bob dylan");
+    }
+
+    @Test
+    void findSimilarNames_shouldRankClosestNameFirst() {
+        // Act
+        List<String> names = index.findSimilarNames("helen dupond", 10);
+
+        // Assert
+        assertFalse(names.isEmpty());
+        assertEquals("helene dupont", names.get(0));
+        assertFalse(names.contains("bob dylan"));
+    }
+
+    @Test
+    void findSimilarNames_whenRepeated_shouldNotCarryScoresOver() {
+        // Act: the second query reuses the score array of the first
+        index.findSimilarNames("marc dupont", 10);
+        List<String> names = index.findSimilarNames("bob dylan", 10);
+
+        // Assert
+        assertEquals(List.of("bob dylan"), names);
+    }
+
+    @Test
+    void findSimilarNames_shouldRespectLimit() {
+        // Act
+        List<String> names = index.findSimilarNames("dupont", 1);
+
+        // Assert
+        assertEquals(1, names.size());
+    }
+
+    @Test
+    void findSimilarNames_whenNothingClose_shouldReturnEmpty() {
+        assertTrue(index.findSimilarNames("zorro", 10).isEmpty());
+    }
+
+    @Test
+    void add_whenNameAlreadyIndexed_shouldIgnoreIt() {
+        // Act
+        index.add("bob dylan");
+        index.add("");
+
+        // Assert
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void refresh_shouldAddNamesCreatedOnOtherNodesAndCompleteTheLoad() {
+        // Arrange: two partitions, the peer hosting partition 1 unreachable during the load
+        ClusterMembership membership = mock(ClusterMembership.class);
+        PartitionStore partitionStore = mock(PartitionStore.class);
+        PartitionForwarder forwarder = mock(PartitionForwarder.class);
+        when(membership.isEnabled()).thenReturn(true);
+        when(membership.allPartitions()).thenReturn(List.of(0, 1));
+        when(membership.peerUrls()).thenReturn(List.of("http://node-2"));
+        when(partitionStore.heldPartitions()).thenReturn(List.of(0));
+        when(partitionStore.callIfHeld(eq(0), any()))
+                .thenReturn(Optional.of(List.of("helene dupont")));
+        when(forwarder.fetchOwnerNames("http://node-2"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new HostedOwnerNamesResponse(List.of(1), List.of("marc durand"))));
+        OwnerNameIndex partitioned = new OwnerNameIndex(mock(AccountRepository.class), membership, partitionStore,
+                forwarder, mock(OwnerNameBackfill.class), 0.4);
+
+        // Act
+        partitioned.loadNow();
+        boolean loadedBeforeRefresh = partitioned.isLoaded();
+        partitioned.refresh();
+
+        // Assert
+        assertFalse(loadedBeforeRefresh);
+        assertTrue(partitioned.isLoaded());
+        assertEquals(List.of("marc durand"), partitioned.findSimilarNames("marc durand", 10));
+        assertEquals(2, partitioned.size());
+    }
+}
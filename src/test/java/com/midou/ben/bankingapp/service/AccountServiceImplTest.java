@@ -2,19 +2,43 @@ package com.midou.ben.bankingapp.service;
 
 import com.midou.ben.bankingapp.exception.AccountNotFoundException;
 import com.midou.ben.bankingapp.exception.AccountOperationException;
+import com.midou.ben.bankingapp.exception.ErrorCode;
 import com.midou.ben.bankingapp.exception.InsufficientFundsException;
 import com.midou.ben.bankingapp.model.Account;
+import com.midou.ben.bankingapp.model.AccountCreatedEvent;
+import com.midou.ben.bankingapp.model.AccountUpdatedEvent;
+import com.midou.ben.bankingapp.model.OutboxEvent;
+import com.midou.ben.bankingapp.model.OutboxEventType;
+import com.midou.ben.bankingapp.partition.ClusterMembership;
+import com.midou.ben.bankingapp.partition.PartitionContext;
+import com.midou.ben.bankingapp.partition.PartitionForwarder;
+import com.midou.ben.bankingapp.partition.PartitionProperties;
+import com.midou.ben.bankingapp.partition.PartitionStore;
 import com.midou.ben.bankingapp.repository.AccountRepository;
+import com.midou.ben.bankingapp.repository.OutboxEventRepository;
+import com.midou.ben.bankingapp.search.OwnerNameIndex;
+import com.midou.ben.bankingapp.search.OwnerSearchCursor;
+import com.midou.ben.bankingapp.search.OwnerSearchQuery;
+import com.midou.ben.bankingapp.search.PartitionMatches;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +52,24 @@ class AccountServiceImplTest {
     @Mock 
     private AccountRepository accountRepository;
 
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OwnerNameIndex ownerNameIndex;
+
+    @Spy // Not partitioned: a single local partition
+    private ClusterMembership clusterMembership = new ClusterMembership(new PartitionProperties(), new SimpleMeterRegistry());
+
+    @Spy // Holds partition 0
+    private PartitionStore partitionStore = new PartitionStore(clusterMembership, mock(DataSource.class), new SimpleMeterRegistry());
+
+    @Mock
+    private PartitionForwarder partitionForwarder;
+
     @InjectMocks 
     private AccountServiceImpl accountService;
 
@@ -86,6 +128,12 @@ class AccountServiceImplTest {
         Account capturedAccount = accountCaptor.getValue();
         assertEquals(owner, capturedAccount.getOwnerName());
         assertEquals(newAccountNumber, capturedAccount.getAccountNumber());
+
+        ArgumentCaptor<OutboxEvent> eventCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository, times(1)).save(eventCaptor.capture());
+        assertEquals(OutboxEventType.ACCOUNT_CREATED, eventCaptor.getValue().getEventType());
+        assertEquals(newAccountNumber, eventCaptor.getValue().getAccountNumber());
+        verify(eventPublisher, times(1)).publishEvent(new AccountCreatedEvent(createdAccount));
     }
 
     @Test
@@ -154,7 +202,7 @@ class AccountServiceImplTest {
         BigDecimal depositAmount = new BigDecimal("200.00");
         BigDecimal expectedBalance = testAccount.getBalance().add(depositAmount);
 
-        when(accountRepository.findByAccountNumber(testAccountNumber)).thenReturn(Optional.of(testAccount));
+        when(accountRepository.findByAccountNumberForUpdate(testAccountNumber)).thenReturn(Optional.of(testAccount));
         // Simulate the save operation updating the balance
         when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -165,8 +213,15 @@ class AccountServiceImplTest {
         // Assert
         assertNotNull(updatedAccount);
         assertEquals(0, expectedBalance.compareTo(updatedAccount.getBalance()));
-        verify(accountRepository, times(1)).findByAccountNumber(testAccountNumber);
+        verify(accountRepository, times(1)).findByAccountNumberForUpdate(testAccountNumber);
         verify(accountRepository, times(1)).save(testAccount); // Check if the correct account instance was saved
+
+        ArgumentCaptor<OutboxEvent> eventCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository, times(1)).save(eventCaptor.capture());
+        assertEquals(OutboxEventType.DEPOSIT, eventCaptor.getValue().getEventType());
+        assertEquals(0, depositAmount.compareTo(eventCaptor.getValue().getAmount()));
+        assertEquals(0, expectedBalance.compareTo(eventCaptor.getValue().getBalance()));
+        verify(eventPublisher, times(1)).publishEvent(new AccountUpdatedEvent(testAccount));
     }
 
     @Test
@@ -174,13 +229,13 @@ class AccountServiceImplTest {
         // Arrange
         String nonExistentAccountNumber = "ACC999";
         BigDecimal depositAmount = new BigDecimal("100.00");
-        when(accountRepository.findByAccountNumber(nonExistentAccountNumber)).thenReturn(Optional.empty());
+        when(accountRepository.findByAccountNumberForUpdate(nonExistentAccountNumber)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(AccountNotFoundException.class, () -> {
             accountService.deposit(nonExistentAccountNumber, depositAmount);
         });
-        verify(accountRepository, times(1)).findByAccountNumber(nonExistentAccountNumber);
+        verify(accountRepository, times(1)).findByAccountNumberForUpdate(nonExistentAccountNumber);
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -194,7 +249,7 @@ class AccountServiceImplTest {
             accountService.deposit(testAccountNumber, zeroAmount);
         });
         assertEquals("Deposit amount must be positive.", exception.getMessage());
-        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(accountRepository, never()).findByAccountNumberForUpdate(anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -208,7 +263,7 @@ class AccountServiceImplTest {
             accountService.deposit(testAccountNumber, negativeAmount);
         });
         assertEquals("Deposit amount must be positive.", exception.getMessage());
-        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(accountRepository, never()).findByAccountNumberForUpdate(anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -220,7 +275,7 @@ class AccountServiceImplTest {
         BigDecimal withdrawalAmount = new BigDecimal("300.00");
         BigDecimal expectedBalance = testAccount.getBalance().subtract(withdrawalAmount);
 
-        when(accountRepository.findByAccountNumber(testAccountNumber)).thenReturn(Optional.of(testAccount));
+        when(accountRepository.findByAccountNumberForUpdate(testAccountNumber)).thenReturn(Optional.of(testAccount));
         when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -229,8 +284,13 @@ class AccountServiceImplTest {
         // Assert
         assertNotNull(updatedAccount);
         assertEquals(0, expectedBalance.compareTo(updatedAccount.getBalance()));
-        verify(accountRepository, times(1)).findByAccountNumber(testAccountNumber);
+        verify(accountRepository, times(1)).findByAccountNumberForUpdate(testAccountNumber);
         verify(accountRepository, times(1)).save(testAccount);
+
+        ArgumentCaptor<OutboxEvent> eventCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository, times(1)).save(eventCaptor.capture());
+        assertEquals(OutboxEventType.WITHDRAWAL, eventCaptor.getValue().getEventType());
+        assertEquals(0, expectedBalance.compareTo(eventCaptor.getValue().getBalance()));
     }
 
     @Test
@@ -238,13 +298,13 @@ class AccountServiceImplTest {
         // Arrange
         String nonExistentAccountNumber = "ACC999";
         BigDecimal withdrawalAmount = new BigDecimal("100.00");
-        when(accountRepository.findByAccountNumber(nonExistentAccountNumber)).thenReturn(Optional.empty());
+        when(accountRepository.findByAccountNumberForUpdate(nonExistentAccountNumber)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(AccountNotFoundException.class, () -> {
             accountService.withdraw(nonExistentAccountNumber, withdrawalAmount);
         });
-        verify(accountRepository, times(1)).findByAccountNumber(nonExistentAccountNumber);
+        verify(accountRepository, times(1)).findByAccountNumberForUpdate(nonExistentAccountNumber);
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -252,14 +312,19 @@ class AccountServiceImplTest {
     void withdraw_whenInsufficientFunds_shouldThrowInsufficientFundsException() {
         // Arrange
         BigDecimal withdrawalAmount = new BigDecimal("2000.00"); // More than current balance
-        when(accountRepository.findByAccountNumber(testAccountNumber)).thenReturn(Optional.of(testAccount));
+        when(accountRepository.findByAccountNumberForUpdate(testAccountNumber)).thenReturn(Optional.of(testAccount));
 
         // Act & Assert
-        assertThrows(InsufficientFundsException.class, () -> {
+        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class, () -> {
             accountService.withdraw(testAccountNumber, withdrawalAmount);
         });
-        verify(accountRepository, times(1)).findByAccountNumber(testAccountNumber);
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS, exception.getErrorCode());
+        assertEquals("Insufficient funds in account " + testAccountNumber, exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length); // Business outcome, no stack trace captured
+        verify(accountRepository, times(1)).findByAccountNumberForUpdate(testAccountNumber);
         verify(accountRepository, never()).save(any(Account.class));
+        verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -272,7 +337,7 @@ class AccountServiceImplTest {
             accountService.withdraw(testAccountNumber, zeroAmount);
         });
         assertEquals("Withdrawal amount must be positive.", exception.getMessage());
-        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(accountRepository, never()).findByAccountNumberForUpdate(anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -286,7 +351,166 @@ class AccountServiceImplTest {
             accountService.withdraw(testAccountNumber, negativeAmount);
         });
         assertEquals("Withdrawal amount must be positive.", exception.getMessage());
-        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(accountRepository, never()).findByAccountNumberForUpdate(anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
+
+    // --- searchByOwner Tests ---
+
+    @Test
+    void searchByOwner_whenPrefix_shouldQueryNormalizedNameRange() {
+        // Arrange
+        when(accountRepository.findOwnerPage(eq("midou b"), eq("midou b" + Character.MAX_VALUE), eq(""), eq(""), any(Limit.class)))
+                .thenReturn(List.of(testAccount));
+
+        // Act
+        Slice<Account> result = accountService.searchByOwner("  MIDOU   B", false, null, 20);
+
+        // Assert
+        assertEquals(List.of(testAccount), result.getContent());
+        assertFalse(result.hasNext());
+        verifyNoInteractions(ownerNameIndex);
+    }
+
+    @Test
+    void searchByOwner_whenFuzzy_shouldKeepTheRankOfTheMatchedNames() {
+        // Arrange: "midou ben" ranks above "amidou ben", although it sorts after it
+        Account best = searchable("ACC-B", "midou ben");
+        Account second = searchable("ACC-A", "amidou ben");
+        when(ownerNameIndex.isLoaded()).thenReturn(true);
+        when(ownerNameIndex.findSimilarNames(eq("midu ben"), anyInt())).thenReturn(List.of("midou ben", "amidou ben"));
+        when(accountRepository.findByNormalizedOwnerNameAndAccountNumberGreaterThanOrderByAccountNumber(anyString(), anyString(), any(Limit.class)))
+                .thenAnswer(invocation -> keysetAfter(List.of(best, second).stream()
+                        .filter(account -> account.getNormalizedOwnerName().equals(invocation.getArgument(0))).toList(),
+                        invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+
+        // Act
+        Slice<Account> firstPage = accountService.searchByOwner("Midu Ben", true, null, 1);
+        Slice<Account> secondPage = accountService.searchByOwner("Midu Ben", true, cursorAfter(firstPage), 1);
+
+        // Assert
+        assertEquals(List.of(best), firstPage.getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(second), secondPage.getContent());
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void searchByOwner_whenFuzzyIndexLoading_shouldThrowAccountOperationException() {
+        // Arrange
+        when(ownerNameIndex.isLoaded()).thenReturn(false);
+
+        // Act & Assert
+        AccountOperationException exception = assertThrows(AccountOperationException.class, () -> {
+            accountService.searchByOwner("Midu Ben", true, null, 20);
+        });
+        assertEquals(ErrorCode.SEARCH_INDEX_LOADING, exception.getErrorCode());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void searchByOwner_whenPartitioned_shouldMergePartitionsInKeysetOrder() {
+        // Arrange: two partitions on one node, each returning its own matches; ids repeat across partitions
+        PartitionProperties properties = new PartitionProperties();
+        properties.setEnabled(true);
+        properties.setCount(2);
+        properties.setNodes(Map.of("node-1", "http://localhost:8081"));
+        ClusterMembership membership = new ClusterMembership(properties, new SimpleMeterRegistry());
+        PartitionStore store = new PartitionStore(membership, mock(DataSource.class), new SimpleMeterRegistry());
+        store.hold(0);
+        store.hold(1);
+        AccountServiceImpl partitionedService = new AccountServiceImpl(accountRepository, outboxEventRepository, eventPublisher,
+                ownerNameIndex, membership, store, partitionForwarder);
+        Account anna = searchable("ACC-A", "anna");
+        Account alice = searchable("ACC-B", "alice");
+        Account amir = searchable("ACC-C", "amir");
+        Account alice2 = searchable("ACC-D", "alice");
+        when(accountRepository.findOwnerPage(eq("a"), anyString(), anyString(), anyString(), any(Limit.class)))
+                .thenAnswer(invocation -> keysetAfter(PartitionContext.current() == 0 ? List.of(alice2, anna) : List.of(alice, amir),
+                        invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)));
+
+        // Act
+        Slice<Account> firstPage = partitionedService.searchByOwner("A", false, null, 2);
+        Slice<Account> secondPage = partitionedService.searchByOwner("A", false, cursorAfter(firstPage), 2);
+
+        // Assert
+        assertEquals(List.of(alice, alice2), firstPage.getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(amir, anna), secondPage.getContent());
+        assertFalse(secondPage.hasNext());
+    }
+
+    @Test
+    void searchByOwner_whenPartitionsOnAnotherNode_shouldMergeWhatItFound() {
+        // Arrange: partition 0 hosted here, partition 1 on node-2
+        AccountServiceImpl partitionedService = twoNodeService();
+        Account alice = searchable("ACC-B", "alice");
+        Account amir = searchable("ACC-C", "amir");
+        when(accountRepository.findOwnerPage(eq("a"), anyString(), anyString(), anyString(), any(Limit.class))).thenReturn(List.of(amir));
+        when(partitionForwarder.searchAccounts(eq("http://localhost:8082"), any(OwnerSearchQuery.class)))
+                .thenReturn(Optional.of(new PartitionMatches(List.of(1), List.of(alice))));
+
+        // Act
+        Slice<Account> result = partitionedService.searchByOwner("A", false, null, 20);
+
+        // Assert
+        assertEquals(List.of(alice, amir), result.getContent());
+    }
+
+    @Test
+    void searchByOwner_whenAPartitionIsUnreachable_shouldThrowAccountOperationException() {
+        // Arrange: node-2 does not answer, its partition would silently be missing
+        AccountServiceImpl partitionedService = twoNodeService();
+        when(accountRepository.findOwnerPage(eq("a"), anyString(), anyString(), anyString(), any(Limit.class))).thenReturn(List.of());
+        when(partitionForwarder.searchAccounts(anyString(), any(OwnerSearchQuery.class))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        AccountOperationException exception = assertThrows(AccountOperationException.class, () -> {
+            partitionedService.searchByOwner("A", false, null, 20);
+        });
+        assertEquals(ErrorCode.SEARCH_PARTITION_UNAVAILABLE, exception.getErrorCode());
+    }
+
+    private AccountServiceImpl twoNodeService() {
+        PartitionProperties properties = new PartitionProperties();
+        properties.setEnabled(true);
+        properties.setCount(2);
+        properties.setNodes(Map.of("node-1", "http://localhost:8081", "node-2", "http://localhost:8082"));
+        ClusterMembership membership = new ClusterMembership(properties, new SimpleMeterRegistry());
+        PartitionStore store = new PartitionStore(membership, mock(DataSource.class), new SimpleMeterRegistry());
+        store.hold(0);
+        return new AccountServiceImpl(accountRepository, outboxEventRepository, eventPublisher,
+                ownerNameIndex, membership, store, partitionForwarder);
+    }
+
+    private static Account searchable(String accountNumber, String normalizedName) {
+        Account account = new Account(accountNumber, normalizedName, BigDecimal.TEN);
+        account.setId(1L);
+        account.setNormalizedOwnerName(normalizedName);
+        return account;
+    }
+
+    // What the keyset query returns for accounts already in (name, number) order
+    private static List<Account> keysetAfter(List<Account> accounts, String afterName, String afterNumber, Limit limit) {
+        return accounts.stream()
+                .filter(account -> account.getNormalizedOwnerName().compareTo(afterName) > 0
+                        || (account.getNormalizedOwnerName().equals(afterName) && account.getAccountNumber().compareTo(afterNumber) > 0))
+                .limit(limit.max())
+                .toList();
+    }
+
+    private static OwnerSearchCursor cursorAfter(Slice<Account> page) {
+        Account last = page.getContent().get(page.getNumberOfElements() - 1);
+        return new OwnerSearchCursor(last.getNormalizedOwnerName(), last.getAccountNumber());
+    }
+
+    @Test
+    void searchByOwner_whenQueryBlank_shouldThrowAccountOperationException() {
+        // Act & Assert
+        AccountOperationException exception = assertThrows(AccountOperationException.class, () -> {
+            accountService.searchByOwner("   ", false, null, 20);
+        });
+        assertEquals(ErrorCode.INVALID_SEARCH_QUERY, exception.getErrorCode());
+        verifyNoInteractions(accountRepository);
+    }
 }
\ No newline at end of file
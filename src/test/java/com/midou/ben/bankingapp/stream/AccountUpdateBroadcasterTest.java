@@ -0,0 +1,184 @@
+package com.midou.ben.bankingapp.stream;
+
+import com.midou.ben.bankingapp.dto.AccountResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountUpdateBroadcasterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccountUpdateBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new AccountUpdateBroadcaster(meterRegistry, 4, 60_000, 60_000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void publish_shouldFanOutToEverySubscriberOfTheAccountOnly() throws InterruptedException {
+        // Arrange
+        RecordingEmitter first = new RecordingEmitter(1);
+        RecordingEmitter second = new RecordingEmitter(1);
+        RecordingEmitter other = new RecordingEmitter(1);
+        broadcaster.register("ACC001", first);
+        broadcaster.register("ACC001", second);
+        broadcaster.register("ACC002", other);
+
+        // Act
+        broadcaster.publish(response("ACC001", "150.00"));
+
+        // Assert
+        assertTrue(first.await());
+        assertTrue(second.await());
+        assertEquals(1, first.sent.size());
+        assertEquals(1, second.sent.size());
+        assertTrue(other.sent.isEmpty());
+        assertEquals(3, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void publish_whenSubscriberIsSlow_shouldDropOldestPendingUpdates() throws InterruptedException {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(5, release);
+        broadcaster.register("ACC001", slow);
+
+        // Act: the first update blocks in send, the next ones pile up in a buffer of 4
+        broadcaster.publish(response("ACC001", "1.00"));
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 10; i++) {
+            broadcaster.publish(response("ACC001", i + ".00"));
+        }
+        release.countDown();
+
+        // Assert: first update plus the 4 most recent ones, nothing in between
+        assertTrue(slow.await());
+        assertEquals(5, slow.sent.size());
+        assertTrue(meterRegistry.counter("bankingapp.stream.dropped").count() > 0);
+    }
+
+    @Test
+    void completion_shouldRemoveSubscriber() {
+        // Arrange
+        CompletingEmitter emitter = new CompletingEmitter();
+        AccountUpdateSubscription subscription = broadcaster.register("ACC001", emitter);
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        // Act
+        emitter.complete();
+        broadcaster.publish(response("ACC001", "1.00"));
+
+        // Assert
+        assertEquals(0, broadcaster.getSubscriberCount());
+        assertTrue(subscription.isClosed());
+        assertFalse(subscription.hasPending());
+    }
+
+    @Test
+    void subscribe_whenUpdateCommitsWhileSnapshotIsRead_shouldEndOnLatestBalance() throws InterruptedException {
+        // Arrange: the snapshot was read, then an update committed and was published before the snapshot got queued
+        LocalDateTime readAt = LocalDateTime.now();
+        AccountResponse snapshot = response("ACC001", "100.00", readAt);
+        AccountResponse update = response("ACC001", "150.00", readAt.plusNanos(1_000));
+        RecordingEmitter emitter = new RecordingEmitter(1);
+
+        // Act
+        broadcaster.subscribe("ACC001", () -> {
+            broadcaster.publish(update);
+            return Optional.of(snapshot);
+        }, emitter);
+
+        // Assert: the update is delivered, the older snapshot queued behind it is not
+        assertTrue(emitter.await());
+        assertEquals(1, emitter.sent.size());
+        assertTrue(emitter.sent.get(0).build().stream().anyMatch(part -> update.equals(part.getData())));
+        assertEquals(1.0, meterRegistry.counter("bankingapp.stream.dropped").count());
+    }
+
+    @Test
+    void subscribe_whenAccountDoesNotExist_shouldNotKeepSubscriber() {
+        // Act
+        Optional<SseEmitter> emitter = broadcaster.subscribe("ACC404", Optional::empty);
+
+        // Assert
+        assertTrue(emitter.isEmpty());
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    private AccountResponse response(String accountNumber, String balance) {
+        return response(accountNumber, balance, LocalDateTime.now());
+    }
+
+    private AccountResponse response(String accountNumber, String balance, LocalDateTime updatedAt) {
+        return new AccountResponse(1L, accountNumber, "Midou Ben", new BigDecimal(balance), updatedAt, updatedAt);
+    }
+
+    // Runs the completion callback the way the servlet container does when the async request ends
+    private static class CompletingEmitter extends SseEmitter {
+        private Runnable completionCallback = () -> { };
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            this.completionCallback = callback;
+        }
+
+        @Override
+        public synchronized void complete() {
+            completionCallback.run();
+        }
+    }
+
+    // Captures frames instead of writing them to a servlet response
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch expected;
+        private final CountDownLatch release;
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        RecordingEmitter(int expectedEvents) {
+            this(expectedEvents, new CountDownLatch(0));
+        }
+
+        RecordingEmitter(int expectedEvents, CountDownLatch release) {
+            this.expected = new CountDownLatch(expectedEvents);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(builder);
+            expected.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            boolean completed = expected.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50); // Give unexpected extra frames a chance to show up
+            return completed;
+        }
+    }
+}
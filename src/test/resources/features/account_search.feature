@@ -0,0 +1,25 @@
+Feature: Account Search by Owner
+  As a support agent
+  I want to find accounts by customer name
+  So that I can help customers who do not know their account number
+
+  Background:
+    Given an account with number "SRCH001" and owner "Hélène Dupont" and balance 100.00 already exists
+    And an account with number "SRCH002" and owner "Helene Durand" and balance 200.00 already exists
+    And an account with number "SRCH003" and owner "Marc Dupont" and balance 300.00 already exists
+
+  Scenario: Search by name prefix ignores case and accents
+    When accounts are searched by owner "HELENE du"
+    Then the search should return the accounts "SRCH001,SRCH002"
+
+  Scenario: Search by full name
+    When accounts are searched by owner "marc dupont"
+    Then the search should return the accounts "SRCH003"
+
+  Scenario: Fuzzy search tolerates typos
+    When accounts are fuzzy searched by owner "Helen Dupond"
+    Then the search results should include the account "SRCH001"
+
+  Scenario: Search without match returns no account
+    When accounts are searched by owner "zorro"
+    Then the search should return no account
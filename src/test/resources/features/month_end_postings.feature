@@ -0,0 +1,36 @@
+Feature: Month-end Postings
+  As a bank operator
+  I want to post interest and fees to every account in one batch run
+  So that month-end does not require one request per account
+
+  Background:
+    Given an account with number "POST001" and owner "Peter Pan" and balance 1200.00 already exists
+    And an account with number "POST002" and owner "Wendy Darling" and balance 0.00 already exists
+    And an account with number "POST003" and owner "John Darling" and balance 30.00 already exists
+
+  Scenario: Interest run credits one twelfth of the annual rate to positive balances
+    When an interest run "INTEREST-RUN-1" with annual rate 0.12 is executed
+    Then the posting run should be completed with 2 accounts posted
+    And the account "POST001" should have a balance of 1212.00
+    And the account "POST002" should have a balance of 0.00
+    And the account "POST003" should have a balance of 30.30
+
+  Scenario: Fee run never takes a balance below zero
+    When a fee run "FEE-RUN-1" of 50.00 is executed
+    Then the posting run should be completed with 2 accounts posted
+    And the account "POST001" should have a balance of 1150.00
+    And the account "POST002" should have a balance of 0.00
+    And the account "POST003" should have a balance of 0.00
+
+  Scenario: Re-executing a completed run does not post twice
+    Given an interest run "INTEREST-RUN-2" with annual rate 0.12 is executed
+    When an interest run "INTEREST-RUN-2" with annual rate 0.12 is executed
+    Then the posting run should be completed with 0 accounts posted
+    And the account "POST001" should have a balance of 1212.00
+
+  Scenario: Resuming a run after an account was closed does not post twice
+    Given an interest run "INTEREST-RUN-3" with annual rate 0.12 is executed
+    And the account number "POST001" does not exist
+    When an interest run "INTEREST-RUN-3" with annual rate 0.12 is executed
+    Then the posting run should be completed with 0 accounts posted
+    And the account "POST003" should have a balance of 30.30